@@ -0,0 +1,86 @@
+package kg.demirbank.psp;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.function.BiFunction;
+
+/**
+ * Shared payloads and helpers for benchmarks
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * Dynamic QR with qrTransactionId (field 01 = 12)
+     */
+    public static final String DYNAMIC_QR = "00020101021232990015qr.demirbank.kg0108SmartPos1016118000001280228712021213021211"
+            + "3253116dabd0c54a8b9c5b7037b7c14c9933360008SmartPos0120pvumkrstkemowcealu7o520453125303417540425005915001000"
+            + "0000007696304beb4";
+
+    /**
+     * Static QR without qrTransactionId (field 01 = 11)
+     */
+    public static final String STATIC_QR = "00020101021132510015qr.demirbank.kg0108SmartPos10161180000012802287333600"
+            + "08SmartPos0120pvumkrstkemowcealu7o520453115303417591500100000000076963041e2f";
+
+    public static final String QR_URI_PREFIX = "https://retail.demirbank.kg/#";
+
+    public static final String INCOMING_CHECK_JSON = "{"
+            + "\"qrType\":\"staticQr\",\"merchantProvider\":\"qr.demirbank.kg\",\"merchantId\":\"SmartPos\","
+            + "\"serviceId\":\"SmartPos\",\"serviceName\":\"pvumkrstkemowcealu7o\","
+            + "\"beneficiaryAccountNumber\":\"1180000012802287\",\"merchantCode\":5311,\"currencyCode\":\"417\","
+            + "\"qrTransactionId\":\"53116dabd0c54a8b9c5b7037b7c14c99\",\"qrComment\":\"Payment for order 42\","
+            + "\"amount\":250000,\"qrLinkHash\":\"BEB4\","
+            + "\"extra\":[{\"key\":\"terminal\",\"value\":\"T-0001\"}]}";
+
+    public static final String INCOMING_CREATE_JSON = "{"
+            + "\"transactionId\":\"8f3c2a1e-4b5d-4e6f-9a0b-1c2d3e4f5a6b\","
+            + "\"qrType\":\"dynamicQr\",\"merchantProvider\":\"qr.demirbank.kg\",\"merchantId\":\"SmartPos\","
+            + "\"serviceId\":\"SmartPos\",\"serviceName\":\"pvumkrstkemowcealu7o\","
+            + "\"beneficiaryAccountNumber\":\"1180000012802287\",\"merchantCode\":5312,\"currencyCode\":\"417\","
+            + "\"qrTransactionId\":\"53116dabd0c54a8b9c5b7037b7c14c99\",\"qrComment\":\"Payment for order 42\","
+            + "\"senderTransactionId\":\"S-20240101-000042\",\"senderReceiptId\":\"R-20240101-000042\","
+            + "\"amount\":250000,\"qrLinkHash\":\"BEB4\",\"transactionType\":10,"
+            + "\"extra\":[{\"key\":\"terminal\",\"value\":\"T-0001\"}]}";
+
+    public static final String UPDATE_JSON = "{\"status\":50,\"updateDate\":\"2024-01-01T12:00:00.000\"}";
+
+    public static final String MERCHANT_CHECK_JSON = "{\"qrUri\":\"" + QR_URI_PREFIX + STATIC_QR
+            + "\",\"customerType\":\"1\"}";
+
+    public static final String MERCHANT_PAYMENT_JSON = "{\"amount\":250000,\"customerType\":\"1\","
+            + "\"paymentSessionId\":\"0b6f1c52-3f0e-4a8e-9d51-7c7f3a9e2b10\"}";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Set a private field, used to inject @Value properties outside of Spring
+     */
+    public static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set field " + name, e);
+        }
+    }
+
+    /**
+     * Create interface stub answering every call with the given function of method name and arguments
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T stub(Class<T> type, BiFunction<String, Object[], Object> answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            default -> type.getSimpleName() + "Stub";
+                        };
+                    }
+                    return answer.apply(method.getName(), args);
+                });
+    }
+}
@@ -0,0 +1,29 @@
+package kg.demirbank.psp.enums;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status.fromCode lookup over all known codes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StatusBenchmark {
+
+    private final int[] codes = {10, 20, 30, 40, 50};
+
+    @Benchmark
+    public void fromCode(Blackhole blackhole) {
+        for (int code : codes) {
+            blackhole.consume(Status.fromCode(code));
+        }
+    }
+}
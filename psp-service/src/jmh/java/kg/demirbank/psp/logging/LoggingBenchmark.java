@@ -0,0 +1,71 @@
+package kg.demirbank.psp.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.spi.FilterReply;
+import kg.demirbank.psp.util.LoggingUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event logging cost: JSON encoding of a request log line and the sampling decision
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoggingBenchmark {
+
+    private JsonLineEncoder encoder;
+    private RequestSamplingFilter samplingFilter;
+    private Logger serviceLogger;
+    private LoggingEvent event;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        serviceLogger = context.getLogger("kg.demirbank.psp.service.impl.BankServiceImpl");
+        encoder = new JsonLineEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        samplingFilter = new RequestSamplingFilter();
+        samplingFilter.addLogger("kg.demirbank.psp.service.impl.BankServiceImpl");
+        samplingFilter.setKeepOneIn(10);
+        samplingFilter.start();
+
+        MDC.put(LoggingUtil.CORRELATION_ID, "0f9c3c1e-6d55-4a1c-9b3e-2f1d7c0a5b21");
+        MDC.put(LoggingUtil.TRANSACTION_ID, "8f3c2a1e4b5d4e6f9a0b1c2d3e4f5a6b");
+        MDC.put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+        MDC.put("spanId", "00f067aa0ba902b7");
+        event = new LoggingEvent(Logger.class.getName(), serviceLogger, ch.qos.logback.classic.Level.INFO,
+                "Incoming transaction created successfully for merchant: {} with amount {}", null,
+                new Object[]{5312, 250000L});
+        event.prepareForDeferredProcessing();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return encoder.encode(event);
+    }
+
+    @Benchmark
+    public FilterReply samplingDecision() {
+        return samplingFilter.decide(null, serviceLogger, ch.qos.logback.classic.Level.INFO, "Incoming transaction created", null, null);
+    }
+}
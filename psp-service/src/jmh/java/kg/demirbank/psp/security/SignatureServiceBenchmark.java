@@ -0,0 +1,101 @@
+package kg.demirbank.psp.security;
+
+import io.micrometer.observation.ObservationRegistry;
+import kg.demirbank.psp.BenchmarkFixtures;
+import kg.demirbank.psp.config.SecurityConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RSA SHA256withRSA sign/verify of an inbound create body
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignatureServiceBenchmark {
+
+    private Path keyDir;
+    private SignatureService signatureService;
+    private byte[] body;
+    private String signature;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        keyDir = Files.createTempDirectory("psp-jmh-keys");
+        Path publicKey = keyDir.resolve("operator-public.pem");
+        Path privateKey = keyDir.resolve("psp-private.pem");
+        Files.writeString(publicKey, pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+        Files.writeString(privateKey, pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+
+        SecurityConfig securityConfig = new SecurityConfig();
+        securityConfig.setOperatorPublicKeyPath(publicKey.toString());
+        securityConfig.setPspPrivateKeyPath(privateKey.toString());
+        securityConfig.setEnabled(true);
+
+        // Keys are loaded once, as @Cacheable does in the application
+        KeyManagementService loader = new KeyManagementService(securityConfig);
+        var operatorPublicKey = loader.getOperatorPublicKey();
+        var pspPrivateKey = loader.getPspPrivateKey();
+        KeyManagementService keys = new KeyManagementService(securityConfig) {
+            @Override
+            public java.security.PublicKey getOperatorPublicKey() {
+                return operatorPublicKey;
+            }
+
+            @Override
+            public java.security.PrivateKey getPspPrivateKey() {
+                return pspPrivateKey;
+            }
+        };
+
+        signatureService = new SignatureService(keys, ObservationRegistry.NOOP);
+        body = BenchmarkFixtures.INCOMING_CREATE_JSON.getBytes(StandardCharsets.UTF_8);
+        signature = signatureService.generateSignature(body, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(keyDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(keyDir);
+    }
+
+    @Benchmark
+    public String sign() {
+        return signatureService.generateSignature(body, null);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return signatureService.verifySignatureWithDetails(body, signature, null).isSuccess();
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,76 @@
+package kg.demirbank.psp.service.clients.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OperatorClientImpl.mapOperatorError classification for typical operator failures
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OperatorErrorMappingBenchmark {
+
+    private OperatorClientImpl operatorClient;
+    private Throwable badRequest;
+    private Throwable supplierNotAvailable;
+    private Throwable readTimeout;
+    private Throwable connectionRefused;
+    private Throwable unexpected;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        operatorClient = new OperatorClientImpl(WebClient.builder(), new SimpleMeterRegistry());
+        byte[] body = "{\"code\":400,\"message\":\"Bad request\"}".getBytes(StandardCharsets.UTF_8);
+        badRequest = WebClientResponseException.create(400, "Bad Request", HttpHeaders.EMPTY, body,
+                StandardCharsets.UTF_8);
+        supplierNotAvailable = WebClientResponseException.create(523, "Supplier not available", HttpHeaders.EMPTY,
+                body, StandardCharsets.UTF_8);
+        readTimeout = ReadTimeoutException.INSTANCE;
+        connectionRefused = new WebClientRequestException(new ConnectException("Connection refused"),
+                org.springframework.http.HttpMethod.POST, URI.create("http://operator/tx/create"), HttpHeaders.EMPTY);
+        unexpected = new IllegalStateException("Unexpected state");
+    }
+
+    @Benchmark
+    public Throwable httpBadRequest() {
+        return operatorClient.mapOperatorError(badRequest);
+    }
+
+    @Benchmark
+    public Throwable httpSupplierNotAvailable() {
+        return operatorClient.mapOperatorError(supplierNotAvailable);
+    }
+
+    @Benchmark
+    public Throwable readTimeout() {
+        return operatorClient.mapOperatorError(readTimeout);
+    }
+
+    @Benchmark
+    public Throwable connectionRefused() {
+        return operatorClient.mapOperatorError(connectionRefused);
+    }
+
+    @Benchmark
+    public Throwable unexpectedError() {
+        return operatorClient.mapOperatorError(unexpected);
+    }
+}
@@ -0,0 +1,71 @@
+package kg.demirbank.psp.service.clients.impl;
+
+import io.micrometer.observation.ObservationRegistry;
+import kg.demirbank.psp.BenchmarkFixtures;
+import kg.demirbank.psp.dto.common.ELQRData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ELQR decoding: raw TLV parse and the full decodeQrUri path with the static QR cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QrDecoderBenchmark {
+
+    private static final String STATIC_URI = BenchmarkFixtures.QR_URI_PREFIX + BenchmarkFixtures.STATIC_QR;
+    private static final String DYNAMIC_URI = BenchmarkFixtures.QR_URI_PREFIX + BenchmarkFixtures.DYNAMIC_QR;
+
+    private QrDecoderClientImpl cachedDecoder;
+    private QrDecoderClientImpl uncachedDecoder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cachedDecoder = decoder(true);
+        uncachedDecoder = decoder(false);
+        cachedDecoder.decodeQrUri(STATIC_URI).block();
+    }
+
+    @Benchmark
+    public ELQRData parseStatic() {
+        return ElqrTlvParser.parse(BenchmarkFixtures.STATIC_QR);
+    }
+
+    @Benchmark
+    public ELQRData parseDynamic() {
+        return ElqrTlvParser.parse(BenchmarkFixtures.DYNAMIC_QR);
+    }
+
+    @Benchmark
+    public ELQRData decodeStaticCached() {
+        return cachedDecoder.decodeQrUri(STATIC_URI).block();
+    }
+
+    @Benchmark
+    public ELQRData decodeStaticUncached() {
+        return uncachedDecoder.decodeQrUri(STATIC_URI).block();
+    }
+
+    @Benchmark
+    public ELQRData decodeDynamic() {
+        return cachedDecoder.decodeQrUri(DYNAMIC_URI).block();
+    }
+
+    private static QrDecoderClientImpl decoder(boolean cacheEnabled) {
+        QrDecoderClientImpl decoder = new QrDecoderClientImpl(ObservationRegistry.NOOP);
+        BenchmarkFixtures.setField(decoder, "cacheEnabled", cacheEnabled);
+        BenchmarkFixtures.setField(decoder, "cacheMaxWeightBytes", 16L * 1024 * 1024);
+        BenchmarkFixtures.setField(decoder, "cacheExpireAfterAccessMs", 3_600_000L);
+        decoder.initCache();
+        return decoder;
+    }
+}
@@ -0,0 +1,96 @@
+package kg.demirbank.psp.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import kg.demirbank.psp.BenchmarkFixtures;
+import kg.demirbank.psp.dto.bank.response.BankCheckResponseDto;
+import kg.demirbank.psp.dto.bank.response.BankTransactionResponseDto;
+import kg.demirbank.psp.dto.common.ELQRData;
+import kg.demirbank.psp.dto.incoming.request.IncomingCheckRequestDto;
+import kg.demirbank.psp.dto.incoming.request.IncomingCreateRequestDto;
+import kg.demirbank.psp.dto.incoming.response.IncomingCheckResponseDto;
+import kg.demirbank.psp.dto.incoming.response.IncomingTransactionResponseDto;
+import kg.demirbank.psp.dto.merchant.request.MerchantCheckRequestDto;
+import kg.demirbank.psp.dto.merchant.response.MerchantCheckResponseDto;
+import kg.demirbank.psp.enums.Status;
+import kg.demirbank.psp.metrics.FlowMetrics;
+import kg.demirbank.psp.repository.OperationRepository;
+import kg.demirbank.psp.service.WebhookService;
+import kg.demirbank.psp.service.clients.BankClient;
+import kg.demirbank.psp.service.clients.impl.ElqrTlvParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BankServiceImpl request-to-response mapping chains with in-memory bank client and repository stubs
+ * Measures DTO/entity mapping plus Reactor assembly; no I/O is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BankServiceMappingBenchmark {
+
+    private BankServiceImpl bankService;
+    private MerchantCheckRequestDto merchantCheckRequest;
+    private ELQRData elqrData;
+    private IncomingCheckRequestDto incomingCheckRequest;
+    private IncomingCreateRequestDto incomingCreateRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BankCheckResponseDto checkResponse = new BankCheckResponseDto();
+        checkResponse.setAccountValid(true);
+        checkResponse.setBeneficiaryName("SmartPos");
+        BankTransactionResponseDto transactionResponse = new BankTransactionResponseDto();
+        transactionResponse.setTransactionId("B-000042");
+        transactionResponse.setStatus(Status.SUCCESS);
+
+        BankClient bankClient = BenchmarkFixtures.stub(BankClient.class, (method, args) ->
+                "checkAccount".equals(method) ? Mono.just(checkResponse) : Mono.just(transactionResponse));
+        OperationRepository operationRepository = BenchmarkFixtures.stub(OperationRepository.class,
+                (method, args) -> "save".equals(method) ? args[0] : null);
+        WebhookService webhookService = BenchmarkFixtures.stub(WebhookService.class, (method, args) -> null);
+
+        PlatformTransactionManager transactionManager = BenchmarkFixtures.stub(PlatformTransactionManager.class,
+                (method, args) -> "getTransaction".equals(method) ? new SimpleTransactionStatus() : null);
+
+        bankService = new BankServiceImpl(bankClient, operationRepository, webhookService,
+                new TransactionTemplate(transactionManager), new FlowMetrics(ObservationRegistry.NOOP));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        merchantCheckRequest = objectMapper.readValue(BenchmarkFixtures.MERCHANT_CHECK_JSON,
+                MerchantCheckRequestDto.class);
+        elqrData = ElqrTlvParser.parse(BenchmarkFixtures.STATIC_QR);
+        incomingCheckRequest = objectMapper.readValue(BenchmarkFixtures.INCOMING_CHECK_JSON,
+                IncomingCheckRequestDto.class);
+        incomingCreateRequest = objectMapper.readValue(BenchmarkFixtures.INCOMING_CREATE_JSON,
+                IncomingCreateRequestDto.class);
+    }
+
+    @Benchmark
+    public MerchantCheckResponseDto merchantCheck() {
+        return bankService.checkQrPayment(merchantCheckRequest, elqrData).block();
+    }
+
+    @Benchmark
+    public IncomingCheckResponseDto incomingCheck() {
+        return bankService.checkIncomingTransaction(incomingCheckRequest).block();
+    }
+
+    @Benchmark
+    public IncomingTransactionResponseDto incomingCreate() {
+        return bankService.createIncomingTransaction(incomingCreateRequest).block();
+    }
+}
@@ -0,0 +1,119 @@
+package kg.demirbank.psp.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import kg.demirbank.psp.BenchmarkFixtures;
+import kg.demirbank.psp.dto.common.UpdateDto;
+import kg.demirbank.psp.dto.incoming.request.IncomingCheckRequestDto;
+import kg.demirbank.psp.dto.incoming.request.IncomingCreateRequestDto;
+import kg.demirbank.psp.dto.merchant.request.MerchantCheckRequestDto;
+import kg.demirbank.psp.dto.merchant.request.MerchantMakePaymentRequestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonUtil.fromJson and ValidationUtil.validateDto for each inbound DTO
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DtoBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private JsonUtil jsonUtil;
+    private ValidationUtil validationUtil;
+
+    private IncomingCheckRequestDto incomingCheck;
+    private IncomingCreateRequestDto incomingCreate;
+    private UpdateDto update;
+    private MerchantCheckRequestDto merchantCheck;
+    private MerchantMakePaymentRequestDto merchantPayment;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        jsonUtil = new JsonUtil(objectMapper);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validationUtil = new ValidationUtil(validatorFactory.getValidator());
+
+        incomingCheck = jsonUtil.fromJson(BenchmarkFixtures.INCOMING_CHECK_JSON, IncomingCheckRequestDto.class);
+        incomingCreate = jsonUtil.fromJson(BenchmarkFixtures.INCOMING_CREATE_JSON, IncomingCreateRequestDto.class);
+        update = jsonUtil.fromJson(BenchmarkFixtures.UPDATE_JSON, UpdateDto.class);
+        merchantCheck = jsonUtil.fromJson(BenchmarkFixtures.MERCHANT_CHECK_JSON, MerchantCheckRequestDto.class);
+        merchantPayment = jsonUtil.fromJson(BenchmarkFixtures.MERCHANT_PAYMENT_JSON,
+                MerchantMakePaymentRequestDto.class);
+
+        // Fixtures must be valid, otherwise the validation benchmarks measure exception paths
+        validationUtil.validateDto(incomingCheck);
+        validationUtil.validateDto(incomingCreate);
+        validationUtil.validateDto(update);
+        validationUtil.validateDto(merchantCheck);
+        validationUtil.validateDto(merchantPayment);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public IncomingCheckRequestDto fromJsonIncomingCheck() {
+        return jsonUtil.fromJson(BenchmarkFixtures.INCOMING_CHECK_JSON, IncomingCheckRequestDto.class);
+    }
+
+    @Benchmark
+    public IncomingCreateRequestDto fromJsonIncomingCreate() {
+        return jsonUtil.fromJson(BenchmarkFixtures.INCOMING_CREATE_JSON, IncomingCreateRequestDto.class);
+    }
+
+    @Benchmark
+    public UpdateDto fromJsonUpdate() {
+        return jsonUtil.fromJson(BenchmarkFixtures.UPDATE_JSON, UpdateDto.class);
+    }
+
+    @Benchmark
+    public MerchantCheckRequestDto fromJsonMerchantCheck() {
+        return jsonUtil.fromJson(BenchmarkFixtures.MERCHANT_CHECK_JSON, MerchantCheckRequestDto.class);
+    }
+
+    @Benchmark
+    public MerchantMakePaymentRequestDto fromJsonMerchantPayment() {
+        return jsonUtil.fromJson(BenchmarkFixtures.MERCHANT_PAYMENT_JSON, MerchantMakePaymentRequestDto.class);
+    }
+
+    @Benchmark
+    public void validateIncomingCheck() {
+        validationUtil.validateDto(incomingCheck);
+    }
+
+    @Benchmark
+    public void validateIncomingCreate() {
+        validationUtil.validateDto(incomingCreate);
+    }
+
+    @Benchmark
+    public void validateUpdate() {
+        validationUtil.validateDto(update);
+    }
+
+    @Benchmark
+    public void validateMerchantCheck() {
+        validationUtil.validateDto(merchantCheck);
+    }
+
+    @Benchmark
+    public void validateMerchantPayment() {
+        validationUtil.validateDto(merchantPayment);
+    }
+}
@@ -0,0 +1,120 @@
+package kg.demirbank.psp.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.MDC;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cost of carrying the correlation ID in the Reactor Context (LogContext) with automatic
+ * propagation, against the same pipeline without it and against copying the MDC in every operator
+ * Each pipeline has five operators reading the MDC, as a log statement would, and one thread hop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogContextBenchmark {
+
+    private static final String CORRELATION_ID = "0f9c3c1e-6d55-4a1c-9b3e-2f1d7c0a5b21";
+
+    private Scheduler hop;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hop = Schedulers.newSingle("hop");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hop.dispose();
+        Hooks.disableAutomaticContextPropagation();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Automatic {
+        @Setup(Level.Trial)
+        public void enable() {
+            Hooks.enableAutomaticContextPropagation();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Manual {
+        @Setup(Level.Trial)
+        public void disable() {
+            Hooks.disableAutomaticContextPropagation();
+        }
+    }
+
+    @Benchmark
+    public String noContext(Manual mode) {
+        return pipeline().block();
+    }
+
+    @Benchmark
+    public String logContext(Automatic mode) {
+        return pipeline()
+                .contextWrite(LogContext.with(LoggingUtil.CORRELATION_ID, CORRELATION_ID))
+                .block();
+    }
+
+    /**
+     * Previous style: every operator copies the correlation ID from the context into the MDC
+     */
+    @Benchmark
+    public String perOperatorCopy(Manual mode) {
+        return Mono.just(CORRELATION_ID)
+                .doOnEach(copyToMdc())
+                .map(LogContextBenchmark::read)
+                .doOnEach(copyToMdc())
+                .publishOn(hop)
+                .doOnEach(copyToMdc())
+                .map(LogContextBenchmark::read)
+                .doOnEach(copyToMdc())
+                .map(LogContextBenchmark::read)
+                .doOnEach(copyToMdc())
+                .map(LogContextBenchmark::read)
+                .doOnEach(copyToMdc())
+                .map(LogContextBenchmark::read)
+                .contextWrite(LogContext.with(LoggingUtil.CORRELATION_ID, CORRELATION_ID))
+                .block();
+    }
+
+    private Mono<String> pipeline() {
+        return Mono.just(CORRELATION_ID)
+                .map(LogContextBenchmark::read)
+                .publishOn(hop)
+                .map(LogContextBenchmark::read)
+                .map(LogContextBenchmark::read)
+                .map(LogContextBenchmark::read)
+                .map(LogContextBenchmark::read);
+    }
+
+    private static String read(String value) {
+        String correlationId = MDC.get(LoggingUtil.CORRELATION_ID);
+        return correlationId != null ? correlationId : value;
+    }
+
+    private static <T> Consumer<Signal<T>> copyToMdc() {
+        return signal -> {
+            String correlationId = LogContext.get(signal.getContextView(), LoggingUtil.CORRELATION_ID);
+            if (correlationId != null) {
+                MDC.put(LoggingUtil.CORRELATION_ID, correlationId);
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package kg.demirbank.psp.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counters of one endpoint (or of whole flows)
+ * Latency is recorded in microseconds; transport failures and timeouts are recorded with the time
+ * until the failure, so slow failures still show up in the percentiles.
+ */
+public final class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final String name;
+    private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+
+    public void recordResponse(int status, long latencyNanos) {
+        recordLatency(latencyNanos);
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    public void recordFailure(long latencyNanos) {
+        recordLatency(latencyNanos);
+        failures.increment();
+    }
+
+    /**
+     * Record latency without an outcome (whole flows)
+     */
+    public void recordLatency(long latencyNanos) {
+        long micros = Math.max(1, Math.min(HIGHEST_TRACKABLE_MICROS, latencyNanos / 1_000));
+        histogram.recordValue(micros);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    public long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Responses with 5xx status plus transport failures
+     */
+    public long getServerErrors() {
+        return getFailures() + countStatuses(500, 599);
+    }
+
+    public long countStatuses(int from, int to) {
+        long count = 0;
+        for (Map.Entry<Integer, LongAdder> entry : statuses.entrySet()) {
+            if (entry.getKey() >= from && entry.getKey() <= to) {
+                count += entry.getValue().sum();
+            }
+        }
+        return count;
+    }
+
+    public Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, adder) -> counts.put(status, adder.sum()));
+        return counts;
+    }
+
+    /**
+     * Latency at percentile in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
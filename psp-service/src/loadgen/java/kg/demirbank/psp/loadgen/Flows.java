@@ -0,0 +1,185 @@
+package kg.demirbank.psp.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Merchant and operator request flows
+ * Merchant: check then makePayment with the returned paymentSessionId.
+ * Operator (inbound): check, create, execute and update with the transaction ID returned by create.
+ * The first request of a flow is timed from its intended arrival time; later requests depend on the
+ * previous response and are timed from when they are sent.
+ */
+public final class Flows {
+
+    private static final String STATIC_QR_URI = "https://retail.demirbank.kg/#"
+            + "00020101021132510015qr.demirbank.kg0108SmartPos10161180000012802287333600"
+            + "08SmartPos0120pvumkrstkemowcealu7o520453115303417591500100000000076963041e2f";
+
+    private static final String MERCHANT_CHECK_BODY = "{\"qrUri\":\"" + STATIC_QR_URI + "\",\"customerType\":\"1\"}";
+
+    private static final String OPERATOR_CHECK_BODY = "{"
+            + "\"qrType\":\"staticQr\",\"merchantProvider\":\"qr.demirbank.kg\",\"merchantId\":\"SmartPos\","
+            + "\"serviceId\":\"SmartPos\",\"serviceName\":\"pvumkrstkemowcealu7o\","
+            + "\"beneficiaryAccountNumber\":\"1180000012802287\",\"merchantCode\":5311,\"currencyCode\":\"417\","
+            + "\"qrComment\":\"Load test\",\"amount\":250000,\"qrLinkHash\":\"1E2F\",\"extra\":[]}";
+
+    /**
+     * Start time marker for requests timed from when they are sent
+     */
+    private static final long SEND_TIME = Long.MIN_VALUE;
+
+    private final HttpClient client;
+    private final RequestSigner signer;
+    private final Scheduler signingScheduler;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentHashMap<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final String pspId;
+    private final String merchantPath;
+    private final String operatorPath;
+
+    public Flows(HttpClient client, RequestSigner signer, Scheduler signingScheduler, LoadOptions options) {
+        this.client = client;
+        this.signer = signer;
+        this.signingScheduler = signingScheduler;
+        this.pspId = options.pspId();
+        this.merchantPath = "/merchant/qr/" + options.apiVersion();
+        this.operatorPath = "/in/qr/" + options.apiVersion() + "/tx";
+    }
+
+    public Mono<Void> merchant(long intendedStartNanos, boolean measured) {
+        return call("merchant check", HttpMethod.POST, merchantPath + "/check", MERCHANT_CHECK_BODY,
+                Mono.empty(), intendedStartNanos, measured)
+                .flatMap(check -> {
+                    String sessionId = field(check, "paymentSessionId");
+                    if (sessionId == null) {
+                        return Mono.empty();
+                    }
+                    String body = "{\"amount\":250000,\"customerType\":\"1\",\"paymentSessionId\":\"" + sessionId + "\"}";
+                    return call("merchant makePayment", HttpMethod.POST, merchantPath + "/makePayment", body,
+                            Mono.empty(), SEND_TIME, measured);
+                })
+                .then();
+    }
+
+    public Mono<Void> operator(long intendedStartNanos, boolean measured) {
+        return call("operator check", HttpMethod.POST, operatorPath + "/check", OPERATOR_CHECK_BODY,
+                signConstant(OPERATOR_CHECK_BODY), intendedStartNanos, measured)
+                .flatMap(check -> {
+                    String body = createBody();
+                    return call("operator create", HttpMethod.POST, operatorPath + "/create", body,
+                            sign(body), SEND_TIME, measured);
+                })
+                .flatMap(create -> {
+                    String transactionId = field(create, "transactionId");
+                    if (transactionId == null) {
+                        return Mono.empty();
+                    }
+                    String executeUri = operatorPath + "/execute/" + transactionId;
+                    String updateBody = "{\"status\":50,\"updateDate\":\"" + LocalDateTime.now() + "\"}";
+                    return call("operator execute", HttpMethod.POST, executeUri, null,
+                            sign(executeUri), SEND_TIME, measured)
+                            .then(Mono.defer(() -> call("operator update", HttpMethod.POST,
+                                    operatorPath + "/update/" + transactionId, updateBody,
+                                    sign(updateBody), SEND_TIME, measured)));
+                })
+                .then();
+    }
+
+    /**
+     * Send request and record its outcome
+     *
+     * @param startNanos intended arrival time, or SEND_TIME to time from sending (after signing)
+     * @return response body of a 2xx response, empty otherwise
+     */
+    private Mono<String> call(String endpoint, HttpMethod method, String uri, String body,
+                              Mono<String> signature, long startNanos, boolean measured) {
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, EndpointStats::new);
+        long[] start = {startNanos};
+        return signature.defaultIfEmpty("")
+                .doOnNext(hash -> {
+                    if (start[0] == SEND_TIME) {
+                        start[0] = System.nanoTime();
+                    }
+                })
+                .flatMap(hash -> client
+                        .headers(headers -> {
+                            headers.set("Content-Type", "application/json");
+                            headers.set("H-PSP-ID", pspId);
+                            if (!hash.isEmpty()) {
+                                headers.set("H-HASH", hash);
+                            }
+                        })
+                        .request(method)
+                        .uri(uri)
+                        .send(body != null ? ByteBufFlux.fromString(Mono.just(body)) : ByteBufFlux.empty())
+                        .responseSingle((response, content) -> content.asString()
+                                .defaultIfEmpty("")
+                                .map(text -> new Response(response.status().code(), text))))
+                .doOnNext(response -> {
+                    if (measured) {
+                        endpointStats.recordResponse(response.status(), System.nanoTime() - start[0]);
+                    }
+                })
+                .doOnError(error -> {
+                    if (measured) {
+                        endpointStats.recordFailure(System.nanoTime() - start[0]);
+                    }
+                })
+                .onErrorResume(error -> Mono.empty())
+                .filter(response -> response.status() >= 200 && response.status() < 300)
+                .map(Response::body);
+    }
+
+    private Mono<String> sign(String data) {
+        if (signer == null) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> signer.sign(data)).subscribeOn(signingScheduler);
+    }
+
+    private Mono<String> signConstant(String data) {
+        return signer == null ? Mono.empty() : Mono.fromCallable(() -> signer.signConstant(data));
+    }
+
+    private String field(String json, String name) {
+        try {
+            JsonNode value = objectMapper.readTree(json).get(name);
+            return value == null || value.isNull() ? null : value.asText();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create body with unique operator transaction and sender IDs
+     */
+    private static String createBody() {
+        String transactionId = UUID.randomUUID().toString().replace("-", "");
+        String sender = Long.toString(ThreadLocalRandom.current().nextLong(1L << 40, 1L << 50), 36);
+        return "{\"transactionId\":\"" + transactionId + "\","
+                + "\"qrType\":\"dynamicQr\",\"merchantProvider\":\"qr.demirbank.kg\",\"merchantId\":\"SmartPos\","
+                + "\"serviceId\":\"SmartPos\",\"serviceName\":\"pvumkrstkemowcealu7o\","
+                + "\"beneficiaryAccountNumber\":\"1180000012802287\",\"merchantCode\":5312,\"currencyCode\":\"417\","
+                + "\"qrTransactionId\":\"" + transactionId + "\",\"qrComment\":\"Load test\","
+                + "\"senderTransactionId\":\"S" + sender + "\",\"senderReceiptId\":\"R" + sender + "\","
+                + "\"amount\":250000,\"qrLinkHash\":\"BEB4\",\"transactionType\":10,\"extra\":[]}";
+    }
+
+    public ConcurrentHashMap<String, EndpointStats> getStats() {
+        return stats;
+    }
+
+    private record Response(int status, String body) {
+    }
+}
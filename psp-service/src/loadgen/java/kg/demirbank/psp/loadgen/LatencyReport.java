@@ -0,0 +1,105 @@
+package kg.demirbank.psp.loadgen;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-endpoint latency report and capacity gates
+ * Latency gates apply to every endpoint; the error gate counts 5xx responses and transport failures,
+ * since 4xx responses are business outcomes of the flow (including injected operator errors).
+ */
+public final class LatencyReport {
+
+    private final LoadOptions options;
+    private final List<String> violations = new ArrayList<>();
+
+    public LatencyReport(LoadOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Print report and write HdrHistogram percentile distributions (.hgrm, milliseconds)
+     *
+     * @return true if all gates passed
+     */
+    public boolean print(PrintStream out, Collection<EndpointStats> endpoints, EndpointStats flows,
+                         long arrivals, long overflow, double measuredSeconds) throws IOException {
+        Files.createDirectories(options.reportDir());
+
+        double arrivalRate = arrivals / measuredSeconds;
+        out.printf(Locale.ROOT, "%nArrivals: %d (%.1f/s, target %.1f/s), generator overflow: %d%n",
+                arrivals, arrivalRate, options.tps(), overflow);
+        out.printf(Locale.ROOT, "%-22s %9s %9s %8s %8s %8s %8s %8s %8s %7s %7s %7s %7s%n",
+                "endpoint", "count", "rps", "p50", "p90", "p95", "p99", "p99.9", "max", "2xx", "4xx", "5xx", "failed");
+
+        long requests = 0;
+        long serverErrors = 0;
+        List<EndpointStats> rows = new ArrayList<>(endpoints);
+        rows.sort((a, b) -> a.getName().compareTo(b.getName()));
+        rows.add(flows);
+        for (EndpointStats stats : rows) {
+            out.printf(Locale.ROOT, "%-22s %9d %9.1f %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f %7d %7d %7d %7d%n",
+                    stats.getName(), stats.getCount(), stats.getCount() / measuredSeconds,
+                    stats.percentileMillis(50), stats.percentileMillis(90), stats.percentileMillis(95),
+                    stats.percentileMillis(99), stats.percentileMillis(99.9), stats.getHistogram().getMaxValue() / 1000.0,
+                    stats.countStatuses(200, 299), stats.countStatuses(400, 499), stats.countStatuses(500, 599),
+                    stats.getFailures());
+            writeDistribution(stats);
+            if (stats == flows) {
+                continue;
+            }
+            requests += stats.getCount();
+            serverErrors += stats.getServerErrors();
+            if (stats.getCount() > 0) {
+                checkLatency(stats, 95, options.p95TargetMs());
+                checkLatency(stats, 99, options.p99TargetMs());
+            }
+            if (stats.countStatuses(400, 499) > 0) {
+                out.printf("  %s statuses: %s%n", stats.getName(), stats.getStatusCounts());
+            }
+        }
+
+        double errorRate = requests == 0 ? 0 : (double) serverErrors / requests;
+        if (errorRate > options.maxErrorRate()) {
+            violations.add(String.format(Locale.ROOT, "server error rate %.4f > %.4f", errorRate, options.maxErrorRate()));
+        }
+        if (arrivalRate < options.tps() * 0.95) {
+            violations.add(String.format(Locale.ROOT, "arrival rate %.1f/s below 95%% of target %.1f/s",
+                    arrivalRate, options.tps()));
+        }
+        if (overflow > 0) {
+            violations.add("generator overflow " + overflow + " (max in-flight " + options.maxInFlight() + " reached)");
+        }
+
+        out.println();
+        if (violations.isEmpty()) {
+            out.println("Gates: PASS");
+        } else {
+            out.println("Gates: FAIL");
+            violations.forEach(violation -> out.println("  " + violation));
+        }
+        out.println("Percentile distributions: " + options.reportDir().toAbsolutePath());
+        return violations.isEmpty();
+    }
+
+    private void checkLatency(EndpointStats stats, double percentile, double targetMs) {
+        double value = stats.percentileMillis(percentile);
+        if (value > targetMs) {
+            violations.add(String.format(Locale.ROOT, "%s p%.0f %.1f ms > %.1f ms",
+                    stats.getName(), percentile, value, targetMs));
+        }
+    }
+
+    private void writeDistribution(EndpointStats stats) throws IOException {
+        Path file = options.reportDir().resolve(stats.getName().replace(' ', '-') + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            stats.getHistogram().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package kg.demirbank.psp.loadgen;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for the merchant and operator flows
+ * Flows arrive on a fixed schedule (Poisson or constant rate) regardless of how fast the service
+ * answers, and the first request of each flow is timed from its scheduled arrival. A slow service
+ * therefore shows up as latency instead of silently lowering the offered load (coordinated omission).
+ *
+ * Usage: gradle loadgen --args='--tps=500 --duration=60 --scenario=mixed'
+ * Exit code 1 when a capacity gate fails.
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        RequestSigner signer = RequestSigner.fromPem(options.keyPath());
+
+        ConnectionProvider connections = ConnectionProvider.builder("loadgen")
+                .maxConnections(options.connections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMillis(options.timeoutMs()))
+                .build();
+        HttpClient client = HttpClient.create(connections)
+                .baseUrl(options.baseUrl())
+                .responseTimeout(Duration.ofMillis(options.timeoutMs()));
+        Scheduler signingScheduler = Schedulers.newParallel("loadgen-sign",
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1), true);
+
+        Flows flows = new Flows(client, signer, signingScheduler, options);
+        EndpointStats flowStats = new EndpointStats("flow");
+        AtomicInteger inFlight = new AtomicInteger();
+        LongAdder arrivals = new LongAdder();
+        LongAdder overflow = new LongAdder();
+
+        System.out.printf("Load: %s, %.1f flows/s (%s arrivals), warmup %d s, duration %d s, signing %s%n",
+                options.scenario(), options.tps(), options.poisson() ? "poisson" : "constant",
+                options.warmupSeconds(), options.durationSeconds(), signer != null ? "on" : "off");
+
+        long meanIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.tps());
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds());
+        long next = start;
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intendedStart = next;
+            boolean measured = intendedStart >= measureFrom;
+            next += options.poisson() ? exponential(meanIntervalNanos) : meanIntervalNanos;
+
+            if (measured) {
+                arrivals.increment();
+            }
+            if (inFlight.get() >= options.maxInFlight()) {
+                if (measured) {
+                    overflow.increment();
+                }
+                continue;
+            }
+            inFlight.incrementAndGet();
+            Mono<Void> flow = isMerchantFlow(options)
+                    ? flows.merchant(intendedStart, measured)
+                    : flows.operator(intendedStart, measured);
+            flow.doFinally(signal -> {
+                inFlight.decrementAndGet();
+                if (measured) {
+                    flowStats.recordLatency(System.nanoTime() - intendedStart);
+                }
+            }).subscribe(null, error -> { });
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.timeoutMs() * 4);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        if (inFlight.get() > 0) {
+            System.out.println("Flows still in flight after drain timeout: " + inFlight.get());
+        }
+
+        boolean passed = new LatencyReport(options).print(System.out, flows.getStats().values(), flowStats,
+                arrivals.sum(), overflow.sum(), options.durationSeconds());
+
+        signingScheduler.dispose();
+        connections.disposeLater().block(Duration.ofSeconds(5));
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean isMerchantFlow(LoadOptions options) {
+        return switch (options.scenario()) {
+            case "merchant" -> true;
+            case "operator" -> false;
+            default -> ThreadLocalRandom.current().nextDouble() < options.merchantShare();
+        };
+    }
+
+    /**
+     * Exponentially distributed inter-arrival time with the given mean
+     */
+    private static long exponential(long meanNanos) {
+        return (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * meanNanos);
+    }
+}
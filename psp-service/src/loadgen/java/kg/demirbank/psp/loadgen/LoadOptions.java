@@ -0,0 +1,85 @@
+package kg.demirbank.psp.loadgen;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load generator options, parsed from {@code --name=value} arguments
+ *
+ * @param baseUrl          service under test
+ * @param tps              flow arrivals per second (open model, independent of response times)
+ * @param durationSeconds  measured run length
+ * @param warmupSeconds    run length before measurement, results are discarded
+ * @param scenario         merchant, operator or mixed
+ * @param merchantShare    share of merchant flows in the mixed scenario
+ * @param poisson          exponential inter-arrival times instead of a constant interval
+ * @param keyPath          PKCS#8 PEM private key used for H-HASH, null disables signing
+ * @param pspId            H-PSP-ID header of operator requests
+ * @param apiVersion       version path segment
+ * @param maxInFlight      flows in flight before new arrivals are counted as generator overflow
+ * @param connections      HTTP connection pool size
+ * @param timeoutMs        response timeout per request
+ * @param p95TargetMs      per-endpoint p95 gate
+ * @param p99TargetMs      per-endpoint p99 gate
+ * @param maxErrorRate     gate on 5xx and transport failures among all requests
+ * @param reportDir        directory for HdrHistogram percentile files
+ */
+public record LoadOptions(String baseUrl,
+                          double tps,
+                          int durationSeconds,
+                          int warmupSeconds,
+                          String scenario,
+                          double merchantShare,
+                          boolean poisson,
+                          Path keyPath,
+                          String pspId,
+                          String apiVersion,
+                          int maxInFlight,
+                          int connections,
+                          long timeoutMs,
+                          double p95TargetMs,
+                          double p99TargetMs,
+                          double maxErrorRate,
+                          Path reportDir) {
+
+    public static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        String key = values.getOrDefault("key", "build/perflab/keys/private.pem");
+        LoadOptions options = new LoadOptions(
+                values.getOrDefault("base-url", "http://localhost:8080"),
+                Double.parseDouble(values.getOrDefault("tps", "100")),
+                Integer.parseInt(values.getOrDefault("duration", "60")),
+                Integer.parseInt(values.getOrDefault("warmup", "10")),
+                values.getOrDefault("scenario", "mixed"),
+                Double.parseDouble(values.getOrDefault("merchant-share", "0.5")),
+                !"constant".equals(values.getOrDefault("arrivals", "poisson")),
+                key.isEmpty() ? null : Path.of(key),
+                values.getOrDefault("psp-id", "perflab-psp"),
+                values.getOrDefault("api-version", "v1"),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "20000")),
+                Integer.parseInt(values.getOrDefault("connections", "1000")),
+                Long.parseLong(values.getOrDefault("timeout-ms", "10000")),
+                Double.parseDouble(values.getOrDefault("p95-ms", "150")),
+                Double.parseDouble(values.getOrDefault("p99-ms", "300")),
+                Double.parseDouble(values.getOrDefault("max-error-rate", "0.01")),
+                Path.of(values.getOrDefault("report-dir", "build/reports/loadgen")));
+
+        if (options.tps <= 0 || options.durationSeconds <= 0) {
+            throw new IllegalArgumentException("tps and duration must be positive");
+        }
+        if (!options.scenario.equals("merchant") && !options.scenario.equals("operator")
+                && !options.scenario.equals("mixed")) {
+            throw new IllegalArgumentException("scenario must be merchant, operator or mixed");
+        }
+        return options;
+    }
+}
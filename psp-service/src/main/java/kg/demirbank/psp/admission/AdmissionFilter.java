@@ -0,0 +1,128 @@
+package kg.demirbank.psp.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Priority-aware admission control
+ * Classifies each request into a priority lane and, while the service is saturated,
+ * rejects the lowest lanes with a fast precomputed 503 before any body reading or RSA work.
+ * Actuator endpoints are never shed and not counted: health checks and metric scrapes matter
+ * most while the service is saturated.
+ */
+@Component
+@Order(2)
+@Slf4j
+public class AdmissionFilter implements WebFilter {
+
+    private static final PathPattern INBOUND_EXECUTE = parse("/in/qr/{version}/tx/execute/{transactionId}");
+    private static final PathPattern INBOUND_UPDATE = parse("/in/qr/{version}/tx/update/{transactionId}");
+    private static final PathPattern INBOUND_CREATE = parse("/in/qr/{version}/tx/create");
+    private static final PathPattern MERCHANT_PAYMENT = parse("/merchant/qr/{version}/makePayment");
+    private static final PathPattern MERCHANT_CHECK = parse("/merchant/qr/{version}/check");
+    private static final PathPattern ACTUATOR = parse("/actuator/**");
+
+    private static final byte[] OVERLOADED_BODY = ("{\"code\":503,\"message\":"
+            + "\"Service is overloaded, retry later\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final SaturationMonitor saturationMonitor;
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final Map<Priority, LongAdder> admitted = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAdder> rejected = new EnumMap<>(Priority.class);
+
+    public AdmissionFilter(SaturationMonitor saturationMonitor,
+                           @Value("${admission.enabled:true}") boolean enabled,
+                           @Value("${admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.saturationMonitor = saturationMonitor;
+        this.enabled = enabled;
+        this.retryAfterSeconds = Integer.toString(retryAfterSeconds);
+        for (Priority priority : Priority.values()) {
+            admitted.put(priority, new LongAdder());
+            rejected.put(priority, new LongAdder());
+        }
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        if (!enabled || ACTUATOR.matches(path)) {
+            return chain.filter(exchange);
+        }
+
+        Priority priority = classify(path);
+        int admittedLanes = Priority.values().length - saturationMonitor.getShedLanes();
+        if (priority.ordinal() < admittedLanes) {
+            admitted.get(priority).increment();
+            return chain.filter(exchange);
+        }
+
+        rejected.get(priority).increment();
+        log.debug("Request shed in lane {}: {}", priority, exchange.getRequest().getPath().value());
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(OVERLOADED_BODY)));
+    }
+
+    /**
+     * Map request path to priority lane
+     */
+    public Priority classify(PathContainer path) {
+        if (INBOUND_UPDATE.matches(path) || INBOUND_EXECUTE.matches(path)) return Priority.CRITICAL;
+        if (INBOUND_CREATE.matches(path) || MERCHANT_PAYMENT.matches(path)) return Priority.HIGH;
+        if (MERCHANT_CHECK.matches(path)) return Priority.LOW;
+        return Priority.NORMAL;
+    }
+
+    public long getAdmittedCount(Priority priority) {
+        return admitted.get(priority).sum();
+    }
+
+    public long getRejectedCount(Priority priority) {
+        return rejected.get(priority).sum();
+    }
+
+    /**
+     * Log per-lane admit/reject totals while shedding has happened
+     */
+    @Scheduled(fixedDelayString = "${admission.stats-log-interval-ms:60000}")
+    public void logStats() {
+        long totalRejected = rejected.values().stream().mapToLong(LongAdder::sum).sum();
+        if (totalRejected == 0) {
+            return;
+        }
+        StringBuilder stats = new StringBuilder();
+        for (Priority priority : Priority.values()) {
+            stats.append(priority).append(" admitted=").append(getAdmittedCount(priority))
+                    .append(" rejected=").append(getRejectedCount(priority)).append("; ");
+        }
+        log.info("Admission stats: {}", stats);
+    }
+
+    private static PathPattern parse(String pattern) {
+        return PathPatternParser.defaultInstance.parse(pattern);
+    }
+}
@@ -0,0 +1,24 @@
+package kg.demirbank.psp.admission;
+
+/**
+ * Admission priority lanes, from most to least important
+ * Lanes are shed from the bottom up: LOW first, CRITICAL never.
+ */
+public enum Priority {
+    /**
+     * Operator execute and update callbacks, they move money and must not be dropped
+     */
+    CRITICAL,
+    /**
+     * Transaction creation: operator create callback and merchant makePayment
+     */
+    HIGH,
+    /**
+     * Operator check requests and unclassified routes
+     */
+    NORMAL,
+    /**
+     * Merchant QR check, cheap to retry for the client
+     */
+    LOW
+}
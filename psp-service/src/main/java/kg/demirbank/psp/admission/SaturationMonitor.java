@@ -0,0 +1,169 @@
+package kg.demirbank.psp.admission;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.netty.channel.EventLoopGroup;
+import kg.demirbank.psp.security.SignatureService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpResources;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks saturation signals used by admission control
+ * Signals: event-loop lag (time for a probe task to run on a server event loop),
+ * threads waiting for a Hikari connection and RSA operations in flight.
+ * Each signal is divided by its threshold; the highest ratio is the current pressure,
+ * which is mapped to the number of priority lanes to shed.
+ */
+@Component
+@Slf4j
+public class SaturationMonitor {
+
+    /**
+     * Weight of the newest lag sample in the moving average
+     */
+    private static final double LAG_SMOOTHING = 0.3;
+
+    private final ObjectProvider<DataSource> dataSourceProvider;
+    private final SignatureService signatureService;
+
+    @Value("${admission.threshold.event-loop-lag-ms:50}")
+    private long eventLoopLagThresholdMs;
+
+    @Value("${admission.threshold.db-pending-acquires:10}")
+    private int dbPendingThreshold;
+
+    @Value("${admission.threshold.crypto-in-flight:16}")
+    private int cryptoInFlightThreshold;
+
+    @Value("${admission.shed-step:0.5}")
+    private double shedStep;
+
+    private volatile HikariPoolMXBean hikariPool;
+    private volatile boolean hikariResolved;
+
+    private volatile long probeStartNanos;
+    private volatile boolean probePending;
+    private volatile double eventLoopLagMs;
+    private volatile int dbPendingAcquires;
+    private volatile int cryptoInFlight;
+    private volatile double pressure;
+    private volatile int shedLanes;
+
+    public SaturationMonitor(ObjectProvider<DataSource> dataSourceProvider, SignatureService signatureService) {
+        this.dataSourceProvider = dataSourceProvider;
+        this.signatureService = signatureService;
+    }
+
+    /**
+     * Number of lowest priority lanes currently shed (0 = admit everything)
+     */
+    public int getShedLanes() {
+        return shedLanes;
+    }
+
+    public double getPressure() {
+        return pressure;
+    }
+
+    public double getEventLoopLagMs() {
+        return eventLoopLagMs;
+    }
+
+    public int getDbPendingAcquires() {
+        return dbPendingAcquires;
+    }
+
+    public int getCryptoInFlight() {
+        return cryptoInFlight;
+    }
+
+    /**
+     * Sample all signals and recompute shed level
+     */
+    @Scheduled(fixedRateString = "${admission.probe-interval-ms:100}")
+    public void sample() {
+        probeEventLoop();
+        dbPendingAcquires = readDbPendingAcquires();
+        cryptoInFlight = signatureService.getInFlightOperations();
+
+        double current = Math.max(eventLoopLagMs / eventLoopLagThresholdMs,
+                Math.max((double) dbPendingAcquires / dbPendingThreshold,
+                        (double) cryptoInFlight / cryptoInFlightThreshold));
+        pressure = current;
+
+        // pressure 1.0 sheds LOW, each further step sheds one more lane; CRITICAL is never shed
+        int lanes = current < 1.0 ? 0 : 1 + (int) ((current - 1.0) / shedStep);
+        lanes = Math.min(lanes, Priority.values().length - 1);
+        if (lanes != shedLanes) {
+            log.warn("Admission shed level changed from {} to {} lanes (pressure: {}, event loop lag: {} ms, "
+                            + "db pending: {}, crypto in flight: {})",
+                    shedLanes, lanes, String.format("%.2f", current), String.format("%.1f", eventLoopLagMs),
+                    dbPendingAcquires, cryptoInFlight);
+            shedLanes = lanes;
+        }
+    }
+
+    /**
+     * Submit a probe task to a server event loop; its queueing delay is the loop lag
+     * A probe still pending from the previous tick counts as lag of at least its age.
+     */
+    private void probeEventLoop() {
+        long now = System.nanoTime();
+        if (probePending) {
+            updateLag(TimeUnit.NANOSECONDS.toMicros(now - probeStartNanos) / 1000.0);
+            return;
+        }
+        try {
+            EventLoopGroup group = HttpResources.get().onServer(false);
+            probeStartNanos = now;
+            probePending = true;
+            group.next().execute(() -> {
+                updateLag(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - probeStartNanos) / 1000.0);
+                probePending = false;
+            });
+        } catch (Exception e) {
+            probePending = false;
+            log.debug("Event loop probe failed: {}", e.getMessage());
+        }
+    }
+
+    private void updateLag(double sampleMs) {
+        eventLoopLagMs = eventLoopLagMs + LAG_SMOOTHING * (sampleMs - eventLoopLagMs);
+    }
+
+    private int readDbPendingAcquires() {
+        if (!hikariResolved) {
+            resolveHikariPool();
+        }
+        HikariPoolMXBean pool = hikariPool;
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+    }
+
+    /**
+     * Pool MXBean is available only after the pool has been started
+     */
+    private void resolveHikariPool() {
+        try {
+            DataSource dataSource = dataSourceProvider.getIfAvailable();
+            if (dataSource == null || !dataSource.isWrapperFor(HikariDataSource.class)) {
+                hikariResolved = true;
+                return;
+            }
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            if (pool != null) {
+                hikariPool = pool;
+                hikariResolved = true;
+            }
+        } catch (Exception e) {
+            hikariResolved = true;
+            log.warn("Hikari pool is not available for admission control: {}", e.getMessage());
+        }
+    }
+}
@@ -10,12 +10,14 @@ import kg.demirbank.psp.exception.security.SignatureVerificationException;
 import kg.demirbank.psp.security.SignatureService;
 import kg.demirbank.psp.service.IncomingService;
 import kg.demirbank.psp.util.JsonUtil;
+import kg.demirbank.psp.util.LogContext;
 import kg.demirbank.psp.util.LoggingUtil;
 import kg.demirbank.psp.util.ValidationUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 /**
@@ -39,17 +41,15 @@ public class IncomingController {
     public Mono<ResponseEntity<IncomingCheckResponseDto>> inboundCheck(
             @PathVariable String version,
             @RequestHeader(name = "H-HASH", required = false) String hash,
-            @RequestBody String rawBody) {
-        
-        // Generate correlation ID for this request
-        LoggingUtil.generateAndSetCorrelationId();
+            @RequestBody String rawBody,
+            ServerWebExchange exchange) {
         
         // Verify signature first
         byte[] bodyBytes = rawBody.getBytes(java.nio.charset.StandardCharsets.UTF_8);
         String uri = "/in/qr/" + version + "/tx/check";
         
         SignatureService.SignatureVerificationResult verificationResult = 
-                signatureService.verifySignatureWithDetails(bodyBytes, hash, uri);
+                signatureService.verifySignatureWithDetails(exchange, bodyBytes, hash, uri);
         
         if (!verificationResult.isSuccess()) {
             return Mono.error(new SignatureVerificationException(verificationResult.getErrorMessage()));
@@ -71,17 +71,15 @@ public class IncomingController {
     public Mono<ResponseEntity<IncomingTransactionResponseDto>> inboundCreate(
             @PathVariable String version,
             @RequestHeader(name = "H-HASH", required = false) String hash,
-            @RequestBody String rawBody) {
-        
-        // Generate correlation ID for this request
-        LoggingUtil.generateAndSetCorrelationId();
+            @RequestBody String rawBody,
+            ServerWebExchange exchange) {
         
         // Verify signature first
         byte[] bodyBytes = rawBody.getBytes(java.nio.charset.StandardCharsets.UTF_8);
         String uri = "/in/qr/" + version + "/tx/create";
         
         SignatureService.SignatureVerificationResult verificationResult = 
-                signatureService.verifySignatureWithDetails(bodyBytes, hash, uri);
+                signatureService.verifySignatureWithDetails(exchange, bodyBytes, hash, uri);
         
         if (!verificationResult.isSuccess()) {
             return Mono.error(new SignatureVerificationException(verificationResult.getErrorMessage()));
@@ -96,28 +94,27 @@ public class IncomingController {
         // Process the request using business service
         return incomingService.createTransaction(body)
                 .map(ResponseEntity::ok)
-                .onErrorResume(e -> Mono.error(e)); // Let GlobalExceptionHandler handle it
+                .onErrorResume(e -> Mono.error(e)) // Let GlobalExceptionHandler handle it
+                .contextWrite(LogContext.with(LoggingUtil.TRANSACTION_ID, body.getTransactionId()));
     }
 
     @PostMapping("/in/qr/{version}/tx/execute/{transactionId}")
     public Mono<ResponseEntity<IncomingTransactionResponseDto>> inboundExecute(
             @PathVariable String version,
             @PathVariable String transactionId,
-            @RequestHeader(name = "H-HASH", required = false) String hash) {
+            @RequestHeader(name = "H-HASH", required = false) String hash,
+            ServerWebExchange exchange) {
         
         // Validate transaction ID
         if (transactionId == null || transactionId.trim().isEmpty()) {
             throw new BadRequestException("Transaction ID is required");
         }
         
-        // Generate correlation ID for this request
-        LoggingUtil.generateAndSetCorrelationId();
-        
         // Verify signature for URI (no body for this request)
         String uri = "/in/qr/" + version + "/tx/execute/" + transactionId;
         
         SignatureService.SignatureVerificationResult verificationResult = 
-                signatureService.verifySignatureWithDetails(null, hash, uri);
+                signatureService.verifySignatureWithDetails(exchange, null, hash, uri);
         
         if (!verificationResult.isSuccess()) {
             return Mono.error(new SignatureVerificationException(verificationResult.getErrorMessage()));
@@ -126,7 +123,8 @@ public class IncomingController {
         // Process the request using business service
         return incomingService.executeTransaction(transactionId)
                 .map(ResponseEntity::ok)
-                .onErrorResume(e -> Mono.error(e)); // Let GlobalExceptionHandler handle it
+                .onErrorResume(e -> Mono.error(e)) // Let GlobalExceptionHandler handle it
+                .contextWrite(LogContext.with(LoggingUtil.TRANSACTION_ID, transactionId));
     }
 
     @PostMapping("/in/qr/{version}/tx/update/{transactionId}")
@@ -134,7 +132,8 @@ public class IncomingController {
             @PathVariable String version,
             @PathVariable String transactionId,
             @RequestHeader(name = "H-HASH", required = false) String hash,
-            @RequestBody String rawBody) {
+            @RequestBody String rawBody,
+            ServerWebExchange exchange) {
         
         if (version == null || version.isBlank()) {
             return Mono.error(new BadRequestException("QR version not specified"));
@@ -143,15 +142,12 @@ public class IncomingController {
             return Mono.error(new BadRequestException("Transaction ID not specified"));
         }
         
-        // Generate correlation ID for this request
-        LoggingUtil.generateAndSetCorrelationId();
-        
         // Verify signature first
         byte[] bodyBytes = rawBody.getBytes(java.nio.charset.StandardCharsets.UTF_8);
         String uri = "/in/qr/" + version + "/tx/update/" + transactionId;
         
         SignatureService.SignatureVerificationResult verificationResult = 
-                signatureService.verifySignatureWithDetails(bodyBytes, hash, uri);
+                signatureService.verifySignatureWithDetails(exchange, bodyBytes, hash, uri);
         
         if (!verificationResult.isSuccess()) {
             return Mono.error(new SignatureVerificationException(verificationResult.getErrorMessage()));
@@ -166,6 +162,7 @@ public class IncomingController {
         // Process the request using business service - ACK response (200 OK empty body)
         return incomingService.updateTransaction(transactionId, body)
                 .then(Mono.just(ResponseEntity.ok("OK")))
-                .onErrorResume(e -> Mono.error(e));
+                .onErrorResume(e -> Mono.error(e))
+                .contextWrite(LogContext.with(LoggingUtil.TRANSACTION_ID, transactionId));
     }
 }
\ No newline at end of file
@@ -7,7 +7,6 @@ import kg.demirbank.psp.dto.merchant.response.MerchantMakePaymentResponseDto;
 import kg.demirbank.psp.dto.common.ELQRData;
 import kg.demirbank.psp.service.MerchantService;
 import kg.demirbank.psp.service.clients.QrDecoderClient;
-import kg.demirbank.psp.util.LoggingUtil;
 import kg.demirbank.psp.util.ValidationUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -43,9 +42,6 @@ public class MerchantController {
             @PathVariable String version,
             @RequestBody MerchantCheckRequestDto request) {
         
-        // Generate correlation ID for this request
-        LoggingUtil.generateAndSetCorrelationId();
-        
         // Validate DTO
         validationUtil.validateDto(request);
         
@@ -74,9 +70,6 @@ public class MerchantController {
             @PathVariable String version,
             @RequestBody MerchantMakePaymentRequestDto request) {
         
-        // Generate correlation ID for this request
-        LoggingUtil.generateAndSetCorrelationId();
-        
         // Validate DTO
         validationUtil.validateDto(request);
         
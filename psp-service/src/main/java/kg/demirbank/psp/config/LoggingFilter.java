@@ -1,5 +1,6 @@
 package kg.demirbank.psp.config;
 
+import kg.demirbank.psp.util.LogContext;
 import kg.demirbank.psp.util.LoggingUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.annotation.Order;
@@ -11,9 +12,12 @@ import reactor.core.publisher.Mono;
 
 import org.springframework.lang.NonNull;
 
+import java.util.UUID;
+
 /**
  * WebFilter for automatic correlation ID management and request/response logging.
  * This filter ensures every request has a correlation ID for tracing.
+ * The ID is written to the Reactor Context once (LogContext) and restored into the MDC from there.
  */
 @Component
 @Order(1)
@@ -27,14 +31,9 @@ public class LoggingFilter implements WebFilter {
     public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
         // Extract or generate correlation ID
         final String correlationId = exchange.getRequest().getHeaders().getFirst(CORRELATION_ID_HEADER);
-        final String finalCorrelationId;
-        
-        if (correlationId == null || correlationId.trim().isEmpty()) {
-            finalCorrelationId = LoggingUtil.generateAndSetCorrelationId();
-        } else {
-            finalCorrelationId = correlationId;
-            LoggingUtil.setCorrelationId(correlationId);
-        }
+        final String finalCorrelationId = correlationId == null || correlationId.trim().isEmpty()
+                ? UUID.randomUUID().toString()
+                : correlationId;
         
         // Add correlation ID to response headers
         exchange.getResponse().getHeaders().add(CORRELATION_ID_HEADER, finalCorrelationId);
@@ -47,12 +46,12 @@ public class LoggingFilter implements WebFilter {
         
         long startTime = System.currentTimeMillis();
         
-        // Log request start
-        log.info("Request started: {} {} with correlation ID: {}", 
-                method, fullUri, finalCorrelationId);
-        
-        // Continue with the filter chain
-        return chain.filter(exchange)
+        // Continue with the filter chain; the correlation ID reaches the MDC from the Reactor Context
+        return Mono.defer(() -> {
+                    log.info("Request started: {} {} with correlation ID: {}",
+                            method, fullUri, finalCorrelationId);
+                    return chain.filter(exchange);
+                })
                 .doFinally(signalType -> {
                     // Calculate response time
                     long responseTime = System.currentTimeMillis() - startTime;
@@ -69,10 +68,8 @@ public class LoggingFilter implements WebFilter {
                         log.info("Request completed: {} {} - Status: {} - Response time: {}ms - Correlation ID: {}", 
                                 method, fullUri, statusCode, responseTime, finalCorrelationId);
                     }
-                    
-                    // Clear MDC context
-                    LoggingUtil.clearContext();
-                });
+                })
+                .contextWrite(LogContext.with(LoggingUtil.CORRELATION_ID, finalCorrelationId));
     }
     
 }
@@ -0,0 +1,143 @@
+package kg.demirbank.psp.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.ObservationPredicate;
+import kg.demirbank.psp.admission.AdmissionFilter;
+import kg.demirbank.psp.admission.Priority;
+import kg.demirbank.psp.admission.SaturationMonitor;
+import kg.demirbank.psp.logging.DroppingAsyncAppender;
+import kg.demirbank.psp.ratelimit.RateLimitFilter;
+import kg.demirbank.psp.service.impl.MerchantWebhookRegistry;
+import kg.demirbank.psp.service.impl.OutboxPublisher;
+import kg.demirbank.psp.service.impl.WebhookAckBatcher;
+import kg.demirbank.psp.service.impl.WebhookCoalescer;
+import kg.demirbank.psp.service.impl.WebhookConsumerScaler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.support.ScheduledTaskObservationContext;
+
+/**
+ * Micrometer meters over the counters the components already keep for JMX
+ * Request latency (http.server.requests), Hikari, JVM/GC and RabbitMQ connection metrics come from
+ * Spring Boot auto-configuration; flow stage, operator client and webhook timers are recorded where
+ * the work happens (FlowMetrics, OperatorClientImpl, WebhookConsumer, MerchantDeliveryGuard).
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * No observations for scheduled maintenance ticks (sampling, ack flush, outbox polling)
+     * They run several times a second and would fill traces and tasks.scheduled.execution with empty
+     * ticks; their effect is already exposed by the gauges below.
+     */
+    @Bean
+    public ObservationPredicate noScheduledTaskObservations() {
+        return (name, context) -> !(context instanceof ScheduledTaskObservationContext);
+    }
+
+    @Bean
+    public MeterBinder webhookMeters(MerchantWebhookRegistry merchantWebhookRegistry,
+                                     WebhookCoalescer coalescer,
+                                     WebhookAckBatcher ackBatcher,
+                                     WebhookConsumerScaler consumerScaler,
+                                     ObjectProvider<OutboxPublisher> outboxPublisher) {
+        return registry -> {
+            Gauge.builder("webhook.registry.merchants", merchantWebhookRegistry, MerchantWebhookRegistry::getSize)
+                    .description("Merchants with an active webhook configuration")
+                    .register(registry);
+            FunctionCounter.builder("webhook.coalesced", coalescer, WebhookCoalescer::getCoalescedCount)
+                    .description("Deliveries dropped because a later status superseded them")
+                    .register(registry);
+            FunctionCounter.builder("webhook.acks", ackBatcher, WebhookAckBatcher::getAckedCount)
+                    .description("Webhook messages acknowledged")
+                    .register(registry);
+            FunctionCounter.builder("webhook.ack.frames", ackBatcher, WebhookAckBatcher::getAckFrameCount)
+                    .description("basic.ack frames sent for them")
+                    .register(registry);
+            Gauge.builder("webhook.consumers", consumerScaler, WebhookConsumerScaler::getConsumers)
+                    .description("Consumers of the shared webhook queue")
+                    .register(registry);
+            Gauge.builder("webhook.queue.depth", consumerScaler, WebhookConsumerScaler::getQueueDepth)
+                    .description("Shared webhook queue depth at the last scaling check")
+                    .register(registry);
+            Gauge.builder("webhook.hold.time", consumerScaler, WebhookConsumerScaler::getHoldTimeMs)
+                    .description("Smoothed time a consumed message is held before ack")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            outboxPublisher.ifAvailable(publisher -> {
+                Gauge.builder("webhook.outbox.lag", publisher, OutboxPublisher::getLagMs)
+                        .description("Age of the oldest pending outbox event seen by the last cycle")
+                        .baseUnit("milliseconds")
+                        .register(registry);
+                Gauge.builder("webhook.outbox.backoff", publisher, OutboxPublisher::getBackoffMs)
+                        .description("Pause between publish attempts while the broker is unavailable")
+                        .baseUnit("milliseconds")
+                        .register(registry);
+                FunctionCounter.builder("webhook.outbox.events", publisher, OutboxPublisher::getPublishedCount)
+                        .tag("result", "published")
+                        .register(registry);
+                FunctionCounter.builder("webhook.outbox.events", publisher, OutboxPublisher::getFailedCount)
+                        .tag("result", "failed")
+                        .register(registry);
+                FunctionCounter.builder("webhook.outbox.events", publisher, OutboxPublisher::getDeadCount)
+                        .tag("result", "dead")
+                        .register(registry);
+            });
+        };
+    }
+
+    @Bean
+    public MeterBinder loggingMeters() {
+        return registry -> {
+            FunctionCounter.builder("logging.events.discarded", DroppingAsyncAppender.class,
+                            appender -> DroppingAsyncAppender.getDiscardedCount())
+                    .description("Log events dropped by the async appenders under pressure")
+                    .tag("reason", "threshold")
+                    .register(registry);
+            FunctionCounter.builder("logging.events.discarded", DroppingAsyncAppender.class,
+                            appender -> DroppingAsyncAppender.getQueueFullCount())
+                    .description("Log events dropped by the async appenders under pressure")
+                    .tag("reason", "queue_full")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder admissionMeters(SaturationMonitor saturationMonitor,
+                                       AdmissionFilter admissionFilter,
+                                       RateLimitFilter rateLimitFilter) {
+        return registry -> {
+            Gauge.builder("psp.admission.pressure", saturationMonitor, SaturationMonitor::getPressure)
+                    .description("Combined saturation signal driving load shedding")
+                    .register(registry);
+            Gauge.builder("psp.admission.shed.lanes", saturationMonitor, SaturationMonitor::getShedLanes)
+                    .register(registry);
+            Gauge.builder("psp.admission.event.loop.lag", saturationMonitor, SaturationMonitor::getEventLoopLagMs)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("psp.admission.crypto.in.flight", saturationMonitor, SaturationMonitor::getCryptoInFlight)
+                    .register(registry);
+            for (Priority priority : Priority.values()) {
+                FunctionCounter.builder("psp.admission.requests", admissionFilter,
+                                filter -> filter.getAdmittedCount(priority))
+                        .tag("priority", priority.name())
+                        .tag("result", "admitted")
+                        .register(registry);
+                FunctionCounter.builder("psp.admission.requests", admissionFilter,
+                                filter -> filter.getRejectedCount(priority))
+                        .tag("priority", priority.name())
+                        .tag("result", "rejected")
+                        .register(registry);
+            }
+            FunctionCounter.builder("psp.ratelimit.rejected", rateLimitFilter, RateLimitFilter::getPspRejectedCount)
+                    .tag("scope", "psp")
+                    .register(registry);
+            FunctionCounter.builder("psp.ratelimit.rejected", rateLimitFilter, RateLimitFilter::getTransactionRejectedCount)
+                    .tag("scope", "transaction")
+                    .register(registry);
+        };
+    }
+}
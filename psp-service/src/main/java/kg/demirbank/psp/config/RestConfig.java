@@ -1,5 +1,6 @@
 package kg.demirbank.psp.config;
 
+import io.micrometer.observation.ObservationRegistry;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
@@ -10,6 +11,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
@@ -36,8 +38,13 @@ public class RestConfig {
     }
     
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        HttpClient httpClient = HttpClient.create()
+    public WebClient.Builder webClientBuilder(ObservationRegistry observationRegistry) {
+        // Named pool instead of the shared global one, so its reactor.netty.connection.provider.* gauges
+        // are reported as name=operator
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("operator")
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
                 // Connection timeout: max time to establish a connection
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectionTimeout)
                 // Response timeout: max time to wait for a complete response
@@ -50,6 +57,8 @@ public class RestConfig {
         
         return WebClient.builder()
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // Client span per call and W3C traceparent header on the request
+                .observationRegistry(observationRegistry)
                 .filter(signatureInterceptor);
     }
 }
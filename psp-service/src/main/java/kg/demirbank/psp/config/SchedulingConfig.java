@@ -0,0 +1,13 @@
+package kg.demirbank.psp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling configuration for background jobs
+ * Pool size is configured via spring.task.scheduling in application.yml
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
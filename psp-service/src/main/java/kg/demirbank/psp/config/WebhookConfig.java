@@ -1,26 +1,36 @@
 package kg.demirbank.psp.config;
 
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.channel.ChannelOption;
+import kg.demirbank.psp.service.impl.WebhookPartitions;
+import kg.demirbank.psp.service.impl.WebhookRetryPolicy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.DirectRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration for webhook notification system
- * Sets up RabbitMQ exchange, queue, DLQ and RestTemplate for HTTP delivery
+ * Sets up RabbitMQ exchange, queue, retry tiers, DLQ and the non-blocking HTTP client for delivery
  */
 @Configuration
 @ConditionalOnProperty(name = "webhook.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
 public class WebhookConfig {
     
     // RabbitMQ Configuration
@@ -46,32 +56,149 @@ public class WebhookConfig {
                 .with("merchant.webhook");
     }
     
+    /**
+     * Partition queues for first-attempt deliveries, bound with per-partition routing keys
+     */
+    @Bean
+    public Declarables webhookPartitionQueues(WebhookPartitions webhookPartitions) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int partition = 0; partition < webhookPartitions.getListenCount(); partition++) {
+            Queue queue = QueueBuilder.durable(WebhookPartitions.queueName(partition)).build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue)
+                    .to(webhookExchange())
+                    .with(webhookPartitions.partitionRoutingKey(partition)));
+        }
+        return new Declarables(declarables);
+    }
+    
+    @Bean
+    public DirectExchange webhookRetryExchange() {
+        return new DirectExchange(WebhookRetryPolicy.RETRY_EXCHANGE, true, false);
+    }
+    
+    @Bean
+    public Binding webhookDlqBinding() {
+        return BindingBuilder.bind(webhookDlq())
+                .to(webhookRetryExchange())
+                .with(WebhookRetryPolicy.DLQ_ROUTING_KEY);
+    }
+    
+    /**
+     * Delay tiers for failed deliveries
+     * One queue per configured delay with a queue-level TTL; expired messages dead-letter back to the
+     * main exchange with the original routing key. No consumer reads these queues.
+     */
+    @Bean
+    public Declarables webhookRetryTiers(WebhookRetryPolicy retryPolicy) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (Long delayMs : retryPolicy.getDelaysMs()) {
+            Queue tier = QueueBuilder.durable(WebhookRetryPolicy.retryQueueName(delayMs))
+                    .ttl(Math.toIntExact(delayMs))
+                    .deadLetterExchange("webhook.merchant.notify")
+                    .deadLetterRoutingKey("merchant.webhook")
+                    .build();
+            declarables.add(tier);
+            declarables.add(BindingBuilder.bind(tier)
+                    .to(webhookRetryExchange())
+                    .with(WebhookRetryPolicy.retryRoutingKeyForDelay(delayMs)));
+        }
+        return new Declarables(declarables);
+    }
+    
     @Bean
     public Jackson2JsonMessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
     }
     
+    /**
+     * Mandatory publishes: an unroutable message is returned and recorded on its CorrelationData,
+     * so a publisher waiting for the confirm can tell it from a delivered one
+     */
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
+        template.setMandatory(true);
+        template.setReturnsCallback(returned -> log.warn("Message returned by broker: {} {}, exchange: {}, routing key: {}",
+                returned.getReplyCode(), returned.getReplyText(), returned.getExchange(), returned.getRoutingKey()));
         return template;
     }
     
+    /**
+     * Listener factory for asynchronous webhook listeners
+     * Acknowledgment is manual: the message is acked when its delivery completes, so up to
+     * prefetch deliveries are in flight per consumer without holding the consumer thread.
+     * Starts with min-consumers; WebhookConsumerScaler adjusts the count at runtime.
+     */
     @Bean
-    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${webhook.rabbitmq.listener.auto-startup:true}") boolean autoStartup,
+            @Value("${webhook.rabbitmq.listener.prefetch:250}") int prefetch,
+            @Value("${webhook.rabbitmq.listener.min-consumers:1}") int minConsumers) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(messageConverter());
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(prefetch);
+        factory.setConcurrentConsumers(Math.max(1, minConsumers));
+        factory.setAutoStartup(autoStartup);
+        // Consumer span continuing the traceparent header set by the publisher
+        factory.setObservationEnabled(true);
         return factory;
     }
     
-    // RestTemplate Configuration for HTTP calls
+    /**
+     * Listener factory for partition queues
+     * Exactly one consumer per queue keeps each partition in order; the listener still processes
+     * up to prefetch messages concurrently and orders them per transaction.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplateBuilder()
-                .setConnectTimeout(Duration.ofSeconds(5))
-                .setReadTimeout(Duration.ofSeconds(5))
+    public DirectRabbitListenerContainerFactory webhookPartitionContainerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${webhook.rabbitmq.listener.auto-startup:true}") boolean autoStartup,
+            @Value("${webhook.rabbitmq.listener.prefetch:250}") int prefetch) {
+        DirectRabbitListenerContainerFactory factory = new DirectRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConsumersPerQueue(1);
+        factory.setPrefetchCount(prefetch);
+        factory.setAutoStartup(autoStartup);
+        factory.setObservationEnabled(true);
+        return factory;
+    }
+    
+    /**
+     * Pooled HTTP client for webhook delivery
+     * Keep-alive connections are pooled per merchant host; requests beyond the per-host limit wait
+     * for a free connection instead of opening new ones.
+     */
+    @Bean
+    public WebClient webhookWebClient(
+            ObservationRegistry observationRegistry,
+            @Value("${webhook.http.timeout-ms:5000}") int timeoutMs,
+            @Value("${webhook.http.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${webhook.http.max-connections-per-host:50}") int maxConnectionsPerHost,
+            @Value("${webhook.http.max-pending-acquires:1000}") int maxPendingAcquires,
+            @Value("${webhook.http.max-idle-time-ms:30000}") long maxIdleTimeMs) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("webhook")
+                .maxConnections(maxConnectionsPerHost)
+                .pendingAcquireMaxCount(maxPendingAcquires)
+                .pendingAcquireTimeout(Duration.ofMillis(timeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .evictInBackground(Duration.ofMillis(maxIdleTimeMs))
+                // reactor.netty.connection.provider.* gauges per merchant host
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(timeoutMs));
+        // Merchant URLs are not templates, so http.client.requests is tagged uri=none, not per merchant
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .observationRegistry(observationRegistry)
                 .build();
     }
 }
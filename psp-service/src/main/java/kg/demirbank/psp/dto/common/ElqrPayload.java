@@ -0,0 +1,27 @@
+package kg.demirbank.psp.dto.common;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Immutable ELQR data decoded from a QR payload
+ */
+@Value
+@Builder
+public class ElqrPayload implements ELQRData {
+    String qrType;
+    String merchantProvider;
+    String merchantId;
+    String serviceId;
+    String serviceName;
+    String beneficiaryAccountNumber;
+    Integer merchantCode;
+    String currencyCode;
+    String qrTransactionId;
+    String qrComment;
+    String qrLinkHash;
+    @Builder.Default
+    List<KeyValueDto> extra = List.of();
+}
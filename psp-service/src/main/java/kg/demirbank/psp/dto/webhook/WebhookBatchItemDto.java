@@ -0,0 +1,49 @@
+package kg.demirbank.psp.dto.webhook;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One notification in a batched webhook delivery
+ * Batched merchants receive a JSON array of these items instead of one WebhookPayloadDto per request
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookBatchItemDto {
+    
+    /**
+     * Stable key of the notification (pspTransactionId:status), the same on every redelivery
+     * Merchants deduplicate by it and report failed items with it
+     */
+    @JsonProperty("idempotencyKey")
+    private String idempotencyKey;
+    
+    /**
+     * Transaction status code, as in WebhookPayloadDto
+     */
+    @JsonProperty("status")
+    private Integer status;
+    
+    /**
+     * QR transaction ID from the operation
+     */
+    @JsonProperty("qrTransactionId")
+    private String qrTransactionId;
+    
+    public static WebhookBatchItemDto of(WebhookMessageDto message) {
+        WebhookPayloadDto payload = message.getPayload();
+        String transactionId = message.getPspTransactionId() != null
+                ? message.getPspTransactionId()
+                : payload.getQrTransactionId();
+        return WebhookBatchItemDto.builder()
+                .idempotencyKey(transactionId + ":" + payload.getStatus())
+                .status(payload.getStatus())
+                .qrTransactionId(payload.getQrTransactionId())
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package kg.demirbank.psp.dto.webhook;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Optional merchant response to a batched webhook delivery
+ * A 2xx response without this body accepts the whole batch
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class WebhookBatchResultDto {
+    
+    /**
+     * Idempotency keys of items the merchant could not process; they are retried individually
+     */
+    @JsonProperty("failed")
+    private List<String> failed;
+}
@@ -16,23 +16,30 @@ import lombok.NoArgsConstructor;
 public class WebhookMessageDto {
     
     /**
-     * Target URL where webhook should be delivered
+     * Merchant application ID, selects the merchant's delivery lane and its API key in
+     * MerchantWebhookRegistry; the key itself is not part of the message
      */
-    private String targetUrl;
+    private String appId;
     
     /**
-     * API key name for HTTP header authentication
+     * PSP transaction ID, selects the partition and orders events of one transaction
      */
-    private String apiKeyName;
+    private String pspTransactionId;
     
     /**
-     * API key value for HTTP header authentication
+     * Target URL where webhook should be delivered
      */
-    private String apiKeyValue;
+    private String targetUrl;
     
     /**
      * Webhook payload containing transaction status
      */
     private WebhookPayloadDto payload;
+    
+    /**
+     * W3C traceparent of the request that produced the event, sent as AMQP header so the
+     * delivery continues that trace; null if it was not traced
+     */
+    private String traceParent;
 }
 
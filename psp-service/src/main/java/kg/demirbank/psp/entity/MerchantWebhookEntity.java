@@ -58,6 +58,20 @@ public class MerchantWebhookEntity {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
+    /**
+     * Maximum notifications per batched delivery
+     * NULL or 1 delivers every notification in its own request; above 1 the merchant receives
+     * a JSON array of notifications (opt-in, see docs/internal/api/webhooks.md)
+     */
+    @Column(name = "batch_max_size")
+    private Integer batchMaxSize;
+
+    /**
+     * Maximum time in milliseconds a notification waits for its batch to fill
+     */
+    @Column(name = "batch_max_wait_ms")
+    private Integer batchMaxWaitMs;
+
     /**
      * User who created this webhook configuration
      */
@@ -144,6 +158,22 @@ public class MerchantWebhookEntity {
         this.isActive = isActive;
     }
 
+    public Integer getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public void setBatchMaxSize(Integer batchMaxSize) {
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    public Integer getBatchMaxWaitMs() {
+        return batchMaxWaitMs;
+    }
+
+    public void setBatchMaxWaitMs(Integer batchMaxWaitMs) {
+        this.batchMaxWaitMs = batchMaxWaitMs;
+    }
+
     public String getCreatedBy() {
         return createdBy;
     }
@@ -197,6 +227,7 @@ public class MerchantWebhookEntity {
                 ", appId='" + appId + '\'' +
                 ", targetUrl='" + targetUrl + '\'' +
                 ", isActive=" + isActive +
+                ", batchMaxSize=" + batchMaxSize +
                 ", createdAt=" + createdAt +
                 '}';
     }
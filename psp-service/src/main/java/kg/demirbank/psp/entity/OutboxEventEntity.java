@@ -0,0 +1,189 @@
+package kg.demirbank.psp.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Entity for the transactional outbox
+ * Events are inserted in the same transaction as the business change and published to RabbitMQ
+ * afterwards by the outbox publisher. A row is pending while published_at is null.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEventEntity {
+
+    /**
+     * Event type of merchant webhook notifications
+     */
+    public static final String TYPE_WEBHOOK = "WEBHOOK";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "OUTBOX_EVENTS_SEQ", allocationSize = 1)
+    private Long id;
+
+    /**
+     * Event type, selects exchange and routing key on publish
+     */
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    /**
+     * ID of the operation the event belongs to
+     */
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    /**
+     * Message body as JSON
+     */
+    @Column(name = "payload", nullable = false, length = 4000)
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Broker confirmation time, null while pending
+     */
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    /**
+     * Failed publish attempts caused by the event itself; broker failures are not counted
+     */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    /**
+     * Time the event used up its attempts, null while it can still be published
+     */
+    @Column(name = "dead_at")
+    private LocalDateTime deadAt;
+
+    /**
+     * End of the lease of the batch currently publishing the event, null when not claimed
+     */
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    public OutboxEventEntity() {}
+
+    public OutboxEventEntity(String eventType, Long aggregateId, String payload) {
+        this.eventType = eventType;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(LocalDateTime publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getDeadAt() {
+        return deadAt;
+    }
+
+    public void setDeadAt(LocalDateTime deadAt) {
+        this.deadAt = deadAt;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OutboxEventEntity that = (OutboxEventEntity) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEventEntity{" +
+                "id=" + id +
+                ", eventType='" + eventType + '\'' +
+                ", aggregateId=" + aggregateId +
+                ", createdAt=" + createdAt +
+                ", publishedAt=" + publishedAt +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
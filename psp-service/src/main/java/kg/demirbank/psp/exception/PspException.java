@@ -1,7 +1,7 @@
 package kg.demirbank.psp.exception;
 
 import lombok.Getter;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 
 /**
  * Base exception class for PSP Service
@@ -9,16 +9,16 @@ import org.springframework.http.HttpStatus;
 @Getter
 public class PspException extends RuntimeException {
     
-    private final HttpStatus status;
+    private final HttpStatusCode status;
     private final Integer code;
     
-    public PspException(String message, HttpStatus status, Integer code) {
+    public PspException(String message, HttpStatusCode status, Integer code) {
         super(message);
         this.status = status;
         this.code = code;
     }
     
-    public PspException(String message, Throwable cause, HttpStatus status, Integer code) {
+    public PspException(String message, Throwable cause, HttpStatusCode status, Integer code) {
         super(message, cause);
         this.status = status;
         this.code = code;
@@ -1,7 +1,7 @@
 package kg.demirbank.psp.exception.network;
 
 import kg.demirbank.psp.exception.PspException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 
 /**
  * Exception for 524 Custom Error
@@ -10,11 +10,11 @@ import org.springframework.http.HttpStatus;
 public class ExternalServerNotAvailableException extends PspException {
     
     public ExternalServerNotAvailableException(String message) {
-        super(message, HttpStatus.valueOf(524), 524);
+        super(message, HttpStatusCode.valueOf(524), 524);
     }
     
     public ExternalServerNotAvailableException(String message, Throwable cause) {
-        super(message, cause, HttpStatus.valueOf(524), 524);
+        super(message, cause, HttpStatusCode.valueOf(524), 524);
     }
 }
 
@@ -1,7 +1,7 @@
 package kg.demirbank.psp.exception.network;
 
 import kg.demirbank.psp.exception.PspException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 
 /**
  * Exception for 523 Custom Error
@@ -10,11 +10,11 @@ import org.springframework.http.HttpStatus;
 public class SupplierNotAvailableException extends PspException {
     
     public SupplierNotAvailableException(String message) {
-        super(message, HttpStatus.valueOf(523), 523);
+        super(message, HttpStatusCode.valueOf(523), 523);
     }
     
     public SupplierNotAvailableException(String message, Throwable cause) {
-        super(message, cause, HttpStatus.valueOf(523), 523);
+        super(message, cause, HttpStatusCode.valueOf(523), 523);
     }
 }
 
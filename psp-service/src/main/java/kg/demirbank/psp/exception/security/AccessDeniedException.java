@@ -1,7 +1,7 @@
 package kg.demirbank.psp.exception.security;
 
 import kg.demirbank.psp.exception.PspException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 
 /**
  * Exception for 453 Custom Error
@@ -10,11 +10,11 @@ import org.springframework.http.HttpStatus;
 public class AccessDeniedException extends PspException {
     
     public AccessDeniedException(String message) {
-        super(message, HttpStatus.valueOf(453), 453);
+        super(message, HttpStatusCode.valueOf(453), 453);
     }
     
     public AccessDeniedException(String message, Throwable cause) {
-        super(message, cause, HttpStatus.valueOf(453), 453);
+        super(message, cause, HttpStatusCode.valueOf(453), 453);
     }
 }
 
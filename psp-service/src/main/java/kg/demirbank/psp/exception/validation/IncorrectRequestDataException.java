@@ -1,7 +1,7 @@
 package kg.demirbank.psp.exception.validation;
 
 import kg.demirbank.psp.exception.PspException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 
 /**
  * Exception for 454 Custom Error
@@ -10,11 +10,11 @@ import org.springframework.http.HttpStatus;
 public class IncorrectRequestDataException extends PspException {
     
     public IncorrectRequestDataException(String message) {
-        super(message, HttpStatus.valueOf(454), 454);
+        super(message, HttpStatusCode.valueOf(454), 454);
     }
     
     public IncorrectRequestDataException(String message, Throwable cause) {
-        super(message, cause, HttpStatus.valueOf(454), 454);
+        super(message, cause, HttpStatusCode.valueOf(454), 454);
     }
 }
 
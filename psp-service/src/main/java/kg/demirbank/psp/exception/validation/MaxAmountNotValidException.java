@@ -1,7 +1,7 @@
 package kg.demirbank.psp.exception.validation;
 
 import kg.demirbank.psp.exception.PspException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 
 /**
  * Exception for 456 Custom Error
@@ -10,11 +10,11 @@ import org.springframework.http.HttpStatus;
 public class MaxAmountNotValidException extends PspException {
     
     public MaxAmountNotValidException(String message) {
-        super(message, HttpStatus.valueOf(456), 456);
+        super(message, HttpStatusCode.valueOf(456), 456);
     }
     
     public MaxAmountNotValidException(String message, Throwable cause) {
-        super(message, cause, HttpStatus.valueOf(456), 456);
+        super(message, cause, HttpStatusCode.valueOf(456), 456);
     }
 }
 
@@ -1,7 +1,7 @@
 package kg.demirbank.psp.exception.validation;
 
 import kg.demirbank.psp.exception.PspException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 
 /**
  * Exception for 455 Custom Error
@@ -10,11 +10,11 @@ import org.springframework.http.HttpStatus;
 public class MinAmountNotValidException extends PspException {
     
     public MinAmountNotValidException(String message) {
-        super(message, HttpStatus.valueOf(455), 455);
+        super(message, HttpStatusCode.valueOf(455), 455);
     }
     
     public MinAmountNotValidException(String message, Throwable cause) {
-        super(message, cause, HttpStatus.valueOf(455), 455);
+        super(message, cause, HttpStatusCode.valueOf(455), 455);
     }
 }
 
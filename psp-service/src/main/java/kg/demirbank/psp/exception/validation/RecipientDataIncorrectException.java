@@ -1,7 +1,7 @@
 package kg.demirbank.psp.exception.validation;
 
 import kg.demirbank.psp.exception.PspException;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 
 /**
  * Exception for 452 Custom Error
@@ -10,11 +10,11 @@ import org.springframework.http.HttpStatus;
 public class RecipientDataIncorrectException extends PspException {
     
     public RecipientDataIncorrectException(String message) {
-        super(message, HttpStatus.valueOf(452), 452);
+        super(message, HttpStatusCode.valueOf(452), 452);
     }
     
     public RecipientDataIncorrectException(String message, Throwable cause) {
-        super(message, cause, HttpStatus.valueOf(452), 452);
+        super(message, cause, HttpStatusCode.valueOf(452), 452);
     }
 }
 
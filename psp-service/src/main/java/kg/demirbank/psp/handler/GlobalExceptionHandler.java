@@ -9,6 +9,7 @@ import kg.demirbank.psp.exception.business.*;
 import kg.demirbank.psp.util.LoggingUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -140,7 +141,7 @@ public class GlobalExceptionHandler {
                 .build();
         
         return Mono.just(ResponseEntity
-                .status(HttpStatus.valueOf(452))
+                .status(HttpStatusCode.valueOf(452))
                 .body(errorResponse));
     }
 
@@ -163,7 +164,7 @@ public class GlobalExceptionHandler {
                 .build();
         
         return Mono.just(ResponseEntity
-                .status(HttpStatus.valueOf(453))
+                .status(HttpStatusCode.valueOf(453))
                 .body(errorResponse));
     }
 
@@ -186,7 +187,7 @@ public class GlobalExceptionHandler {
                 .build();
         
         return Mono.just(ResponseEntity
-                .status(HttpStatus.valueOf(454))
+                .status(HttpStatusCode.valueOf(454))
                 .body(errorResponse));
     }
 
@@ -209,7 +210,7 @@ public class GlobalExceptionHandler {
                 .build();
         
         return Mono.just(ResponseEntity
-                .status(HttpStatus.valueOf(455))
+                .status(HttpStatusCode.valueOf(455))
                 .body(errorResponse));
     }
 
@@ -232,7 +233,7 @@ public class GlobalExceptionHandler {
                 .build();
         
         return Mono.just(ResponseEntity
-                .status(HttpStatus.valueOf(456))
+                .status(HttpStatusCode.valueOf(456))
                 .body(errorResponse));
     }
 
@@ -278,7 +279,7 @@ public class GlobalExceptionHandler {
                 .build();
         
         return Mono.just(ResponseEntity
-                .status(HttpStatus.valueOf(523))
+                .status(HttpStatusCode.valueOf(523))
                 .body(errorResponse));
     }
 
@@ -301,7 +302,7 @@ public class GlobalExceptionHandler {
                 .build();
         
         return Mono.just(ResponseEntity
-                .status(HttpStatus.valueOf(524))
+                .status(HttpStatusCode.valueOf(524))
                 .body(errorResponse));
     }
 
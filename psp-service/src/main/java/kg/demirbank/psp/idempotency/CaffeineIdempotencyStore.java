@@ -0,0 +1,97 @@
+package kg.demirbank.psp.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded in-process idempotency store
+ * Each key maps to a future: duplicates arriving while the first request runs subscribe to it
+ * and receive the response as soon as the owner completes. Entries expire individually
+ * (in-flight TTL while running, operation TTL once completed) and are weighed by body size.
+ * The owner's token is its in-flight entry; complete and release only touch the key while it still
+ * maps to that entry, so an owner whose reservation expired cannot overwrite a newer owner.
+ */
+public class CaffeineIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, Entry> cache;
+
+    public CaffeineIdempotencyStore(long maxWeightBytes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, Entry entry) -> key.length() + entry.weight())
+                .expireAfter(new EntryExpiry())
+                .build();
+    }
+
+    @Override
+    public Mono<Reservation> reserve(String key, Duration inFlightTtl) {
+        return Mono.fromSupplier(() -> {
+            Entry fresh = new Entry(new CompletableFuture<>(), inFlightTtl, 0);
+            Entry existing = cache.asMap().putIfAbsent(key, fresh);
+            if (existing == null) {
+                return Reservation.owner(fresh);
+            }
+            return Reservation.duplicate(Mono.fromFuture(existing.future()));
+        });
+    }
+
+    @Override
+    public Mono<Void> complete(String key, Object token, IdempotentResponse response, Duration ttl) {
+        return Mono.fromRunnable(() -> {
+            Entry owned = (Entry) token;
+            // Duplicates already waiting on this reservation get the response even if it expired
+            owned.future().complete(response);
+            Entry completed = new Entry(owned.future(), ttl, response.weight());
+            // Absent key: nobody reserved it since, so the response can still be kept
+            if (!cache.asMap().replace(key, owned, completed)) {
+                cache.asMap().putIfAbsent(key, completed);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> release(String key, Object token) {
+        return Mono.fromRunnable(() -> {
+            Entry owned = (Entry) token;
+            cache.asMap().remove(key, owned);
+            // Completing with null makes waiting duplicates retry the reservation
+            owned.future().complete(null);
+        });
+    }
+
+    /**
+     * Current number of stored keys (in-flight and completed)
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private record Entry(CompletableFuture<IdempotentResponse> future, Duration ttl, int weight) {
+    }
+
+    /**
+     * Per-entry expiry: every create or update restarts the entry's own TTL
+     */
+    private static class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return entry.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package kg.demirbank.psp.idempotency;
+
+import kg.demirbank.psp.security.SignatureService;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * WebFilter providing idempotency for IncomingController and MerchantController endpoints
+ * The first request for a key executes normally and its successful response is stored.
+ * Duplicates replay the stored status and body byte-for-byte; duplicates arriving while the
+ * first request is still running wait for its result instead of executing again.
+ * Non-2xx responses are not stored, so a failed attempt can be retried by the caller.
+ * Signed operator routes are verified here before any reservation or replay; requests failing
+ * verification bypass idempotency and are rejected by the controller. A request reusing a key with
+ * a different fingerprint gets 422 instead of the stored response.
+ */
+@Component
+@Order(10)
+@Slf4j
+public class IdempotencyFilter implements WebFilter {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    public static final String SIGNATURE_HEADER = "H-HASH";
+
+    private static final byte[] KEY_REUSED_BODY = ("{\"code\":422,\"message\":"
+            + "\"Idempotency key was already used for a different request\"}").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] IN_PROGRESS_BODY = ("{\"code\":409,\"message\":"
+            + "\"Request with the same idempotency key is still in progress\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final IdempotencyKeyResolver keyResolver;
+    private final SignatureService signatureService;
+    private final IdempotencyStore store;
+    private final boolean enabled;
+    private final Duration waitTimeout;
+    private final Duration inFlightTtl;
+
+    public IdempotencyFilter(IdempotencyKeyResolver keyResolver,
+                             SignatureService signatureService,
+                             ObjectProvider<IdempotencyStore> sharedStore,
+                             @Value("${idempotency.enabled:true}") boolean enabled,
+                             @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMs,
+                             @Value("${idempotency.in-flight-ttl-ms:60000}") long inFlightTtlMs,
+                             @Value("${idempotency.local.max-weight-bytes:67108864}") long maxWeightBytes) {
+        this.keyResolver = keyResolver;
+        this.signatureService = signatureService;
+        this.store = sharedStore.getIfAvailable(() -> new CaffeineIdempotencyStore(maxWeightBytes));
+        this.enabled = enabled;
+        this.waitTimeout = Duration.ofMillis(waitTimeoutMs);
+        this.inFlightTtl = Duration.ofMillis(inFlightTtlMs);
+        log.info("Idempotency filter enabled: {}, store: {}", enabled, store.getClass().getSimpleName());
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled || request.getMethod() != HttpMethod.POST) {
+            return chain.filter(exchange);
+        }
+
+        IdempotencyKeyResolver.Route route = keyResolver.classify(request);
+        if (route == IdempotencyKeyResolver.Route.NONE) {
+            return chain.filter(exchange);
+        }
+
+        if (!route.isBodyRequired()) {
+            if (!isAuthenticated(route, exchange, null)) {
+                return chain.filter(exchange);
+            }
+            IdempotencyKeyResolver.ResolvedKey key = keyResolver.resolve(route, request, null);
+            return key == null ? chain.filter(exchange) : process(key, exchange, chain);
+        }
+
+        // Body is read once here and replayed to the controller from memory
+        return DataBufferUtils.join(request.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> {
+                    ServerWebExchange cachedExchange = exchange.mutate()
+                            .request(new CachedBodyRequest(request, bytes))
+                            .build();
+                    if (!isAuthenticated(route, cachedExchange, bytes)) {
+                        return chain.filter(cachedExchange);
+                    }
+                    IdempotencyKeyResolver.ResolvedKey key = keyResolver.resolve(route, request, bytes);
+                    return key == null ? chain.filter(cachedExchange) : process(key, cachedExchange, chain);
+                });
+    }
+
+    /**
+     * Whether the request may take part in idempotency: signed routes must pass signature verification
+     * Verification is recorded on the exchange, the controller does not repeat it.
+     */
+    private boolean isAuthenticated(IdempotencyKeyResolver.Route route, ServerWebExchange exchange, byte[] body) {
+        if (!route.isSigned()) {
+            return true;
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        boolean verified = signatureService.verifySignatureWithDetails(exchange, body,
+                request.getHeaders().getFirst(SIGNATURE_HEADER),
+                request.getPath().pathWithinApplication().value()).isSuccess();
+        if (!verified) {
+            log.debug("Unverified request to {}, idempotency skipped", request.getPath());
+        }
+        return verified;
+    }
+
+    /**
+     * Execute as owner or replay/wait as duplicate
+     */
+    private Mono<Void> process(IdempotencyKeyResolver.ResolvedKey key, ServerWebExchange exchange, WebFilterChain chain) {
+        return store.reserve(key.key(), inFlightTtl)
+                .flatMap(reservation -> {
+                    if (reservation.acquired()) {
+                        return executeAndStore(key, reservation.token(), exchange, chain);
+                    }
+                    log.debug("Duplicate request for idempotency key: {}", key.key());
+                    return reservation.response()
+                            .timeout(waitTimeout)
+                            .map(Optional::of)
+                            .defaultIfEmpty(Optional.empty())
+                            // Released key (no response) lets this request try to become the owner
+                            .flatMap(stored -> stored.isPresent()
+                                    ? replay(exchange, key, stored.get())
+                                    : process(key, exchange, chain))
+                            .onErrorResume(TimeoutException.class, e -> inProgress(exchange));
+                });
+    }
+
+    /**
+     * Run the request chain capturing the response body, then store or release the key
+     */
+    private Mono<Void> executeAndStore(IdempotencyKeyResolver.ResolvedKey key, Object token,
+                                       ServerWebExchange exchange, WebFilterChain chain) {
+        CapturingResponse capturingResponse = new CapturingResponse(exchange.getResponse());
+        ServerWebExchange capturingExchange = exchange.mutate().response(capturingResponse).build();
+
+        return chain.filter(capturingExchange)
+                .then(Mono.defer(() -> {
+                    HttpStatusCode status = capturingResponse.getStatusCode();
+                    int statusCode = status != null ? status.value() : HttpStatus.OK.value();
+                    if (statusCode >= 200 && statusCode < 300) {
+                        MediaType contentType = capturingResponse.getHeaders().getContentType();
+                        IdempotentResponse response = new IdempotentResponse(statusCode,
+                                contentType != null ? contentType.toString() : null,
+                                capturingResponse.getCapturedBody(), key.requestHash());
+                        return store.complete(key.key(), token, response, key.ttl());
+                    }
+                    return store.release(key.key(), token);
+                }))
+                .onErrorResume(e -> store.release(key.key(), token).then(Mono.error(e)))
+                .doOnCancel(() -> store.release(key.key(), token).subscribe());
+    }
+
+    /**
+     * Write stored response to the client, or 422 if it was produced by a different request
+     */
+    private Mono<Void> replay(ServerWebExchange exchange, IdempotencyKeyResolver.ResolvedKey key,
+                              IdempotentResponse stored) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (!key.requestHash().equals(stored.requestHash())) {
+            log.warn("Idempotency key {} reused with a different request, rejected", key.key());
+            response.setStatusCode(HttpStatus.UNPROCESSABLE_ENTITY);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(KEY_REUSED_BODY)));
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(stored.statusCode()));
+        if (stored.contentType() != null) {
+            response.getHeaders().set(HttpHeaders.CONTENT_TYPE, stored.contentType());
+        }
+        response.getHeaders().set(REPLAYED_HEADER, "true");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(stored.body())));
+    }
+
+    /**
+     * Respond with 409 when the first request did not finish within wait timeout
+     */
+    private Mono<Void> inProgress(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.CONFLICT);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(IN_PROGRESS_BODY)));
+    }
+
+    /**
+     * Request decorator serving an already read body
+     */
+    private static class CachedBodyRequest extends ServerHttpRequestDecorator {
+
+        private final byte[] body;
+
+        CachedBodyRequest(ServerHttpRequest delegate, byte[] body) {
+            super(delegate);
+            this.body = body;
+        }
+
+        @Override
+        @NonNull
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+        }
+    }
+
+    /**
+     * Response decorator keeping a copy of the written body
+     */
+    private static class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private volatile byte[] capturedBody = new byte[0];
+
+        CapturingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        byte[] getCapturedBody() {
+            return capturedBody;
+        }
+
+        @Override
+        @NonNull
+        public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(Flux.from(body))
+                    .map(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(bytes -> {
+                        capturedBody = bytes;
+                        return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+        }
+
+        @Override
+        @NonNull
+        public Mono<Void> writeAndFlushWith(@NonNull Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(Flux::from));
+        }
+    }
+}
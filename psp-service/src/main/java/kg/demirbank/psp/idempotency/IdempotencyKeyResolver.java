@@ -0,0 +1,213 @@
+package kg.demirbank.psp.idempotency;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kg.demirbank.psp.ratelimit.RateLimitFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Resolves idempotency keys for inbound operator and merchant endpoints
+ * Key patterns follow reliability/idempotency.md, prefixed with the caller:
+ * idem:{caller}:check:{merchantProvider}:{qrTransactionId}:{amount}, idem:{caller}:create:{pspTransactionId},
+ * idem:{caller}:execute:{transactionId}, idem:{caller}:update:{transactionId}:{status}.
+ * The caller of inbound routes is the H-PSP-ID of the signed request; the public merchant API has no
+ * authenticated caller and uses "merchant". Merchant payments are keyed by payment session, merchant
+ * checks by the optional Idempotency-Key header.
+ * Each key carries a SHA-256 fingerprint of the request (body, or path for bodiless routes) so a
+ * different request reusing a key is rejected instead of answered with another request's result.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyKeyResolver {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final PathPattern INBOUND_CHECK = parse("/in/qr/{version}/tx/check");
+    private static final PathPattern INBOUND_CREATE = parse("/in/qr/{version}/tx/create");
+    private static final PathPattern INBOUND_EXECUTE = parse("/in/qr/{version}/tx/execute/{transactionId}");
+    private static final PathPattern INBOUND_UPDATE = parse("/in/qr/{version}/tx/update/{transactionId}");
+    private static final PathPattern MERCHANT_CHECK = parse("/merchant/qr/{version}/check");
+    private static final PathPattern MERCHANT_PAYMENT = parse("/merchant/qr/{version}/makePayment");
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl.check-ms:120000}")
+    private long checkTtlMs;
+
+    @Value("${idempotency.ttl.transaction-ms:86400000}")
+    private long transactionTtlMs;
+
+    /**
+     * Route classification for a request path
+     */
+    public enum Route {
+        INBOUND_CHECK(true, true),
+        INBOUND_CREATE(true, true),
+        INBOUND_EXECUTE(false, true),
+        INBOUND_UPDATE(true, true),
+        MERCHANT_CHECK(true, false),
+        MERCHANT_PAYMENT(true, false),
+        NONE(false, false);
+
+        private final boolean bodyRequired;
+        private final boolean signed;
+
+        Route(boolean bodyRequired, boolean signed) {
+            this.bodyRequired = bodyRequired;
+            this.signed = signed;
+        }
+
+        public boolean isBodyRequired() {
+            return bodyRequired;
+        }
+
+        /**
+         * Operator route carrying an H-HASH signature, verified before any reserve or replay
+         */
+        public boolean isSigned() {
+            return signed;
+        }
+    }
+
+    /**
+     * Resolved key with its response TTL and the request fingerprint
+     */
+    public record ResolvedKey(String key, Duration ttl, String requestHash) {
+    }
+
+    /**
+     * Classify request by path, without reading the body
+     */
+    public Route classify(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        if (INBOUND_UPDATE.matches(path)) return Route.INBOUND_UPDATE;
+        if (INBOUND_EXECUTE.matches(path)) return Route.INBOUND_EXECUTE;
+        if (INBOUND_CREATE.matches(path)) return Route.INBOUND_CREATE;
+        if (INBOUND_CHECK.matches(path)) return Route.INBOUND_CHECK;
+        if (MERCHANT_PAYMENT.matches(path)) return Route.MERCHANT_PAYMENT;
+        if (MERCHANT_CHECK.matches(path)) return Route.MERCHANT_CHECK;
+        return Route.NONE;
+    }
+
+    /**
+     * Resolve idempotency key for a classified request
+     *
+     * @param route route returned by {@link #classify}
+     * @param request current request
+     * @param body raw body bytes, null for routes without body
+     * @return resolved key or null if the request carries no idempotency key
+     */
+    public ResolvedKey resolve(Route route, ServerHttpRequest request, byte[] body) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        String prefix = "idem:" + caller(route, request) + ":";
+        String requestHash = sha256(body != null && body.length > 0
+                ? body
+                : path.value().getBytes(StandardCharsets.UTF_8));
+        switch (route) {
+            case INBOUND_EXECUTE: {
+                String transactionId = pathVariable(INBOUND_EXECUTE, path, "transactionId");
+                return key(prefix + "execute:" + transactionId, transactionTtlMs, requestHash);
+            }
+            case INBOUND_UPDATE: {
+                String transactionId = pathVariable(INBOUND_UPDATE, path, "transactionId");
+                JsonNode json = readJson(body);
+                String status = text(json, "status");
+                return status == null ? null
+                        : key(prefix + "update:" + transactionId + ":" + status, transactionTtlMs, requestHash);
+            }
+            case INBOUND_CREATE: {
+                String pspTransactionId = text(readJson(body), "transactionId");
+                return pspTransactionId == null ? null
+                        : key(prefix + "create:" + pspTransactionId, transactionTtlMs, requestHash);
+            }
+            case INBOUND_CHECK: {
+                JsonNode json = readJson(body);
+                String qrTransactionId = text(json, "qrTransactionId");
+                // Static QR checks have no transaction identity, caching them could mix beneficiaries
+                if (qrTransactionId == null) {
+                    return null;
+                }
+                return key(prefix + "check:" + text(json, "merchantProvider") + ":" + qrTransactionId
+                        + ":" + text(json, "amount"), checkTtlMs, requestHash);
+            }
+            case MERCHANT_PAYMENT: {
+                String paymentSessionId = text(readJson(body), "paymentSessionId");
+                return paymentSessionId == null ? null
+                        : key(prefix + "pay:" + paymentSessionId, transactionTtlMs, requestHash);
+            }
+            case MERCHANT_CHECK: {
+                String headerKey = request.getHeaders().getFirst(IDEMPOTENCY_KEY_HEADER);
+                return headerKey == null || headerKey.isBlank() ? null
+                        : key(prefix + "merchant-check:" + headerKey, checkTtlMs, requestHash);
+            }
+            default:
+                return null;
+        }
+    }
+
+    private ResolvedKey key(String key, long ttlMs, String requestHash) {
+        return new ResolvedKey(key, Duration.ofMillis(ttlMs), requestHash);
+    }
+
+    private static String caller(Route route, ServerHttpRequest request) {
+        if (!route.isSigned()) {
+            return "merchant";
+        }
+        String pspId = request.getHeaders().getFirst(RateLimitFilter.PSP_ID_HEADER);
+        return pspId == null || pspId.isBlank() ? "-" : pspId;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String pathVariable(PathPattern pattern, PathContainer path, String name) {
+        PathPattern.PathMatchInfo info = pattern.matchAndExtract(path);
+        Map<String, String> variables = info != null ? info.getUriVariables() : Map.of();
+        return variables.get(name);
+    }
+
+    private JsonNode readJson(byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (Exception e) {
+            // Malformed body is rejected later by the controller, no key for it
+            log.debug("Cannot read idempotency key from body: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String text(JsonNode json, String field) {
+        if (json == null) {
+            return null;
+        }
+        JsonNode node = json.get(field);
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static PathPattern parse(String pattern) {
+        return PathPatternParser.defaultInstance.parse(pattern);
+    }
+}
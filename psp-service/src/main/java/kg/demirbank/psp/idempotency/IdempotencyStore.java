@@ -0,0 +1,65 @@
+package kg.demirbank.psp.idempotency;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * SPI for idempotency key storage
+ * The default implementation is the in-process {@link CaffeineIdempotencyStore}.
+ * Registering a bean of this type (e.g. backed by Redis) replaces it with a store shared across nodes.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Reserve the key for execution
+     * If the key is free the caller becomes the owner and must later call
+     * {@link #complete} or {@link #release} with the reservation's token. Otherwise the reservation
+     * exposes the stored response.
+     *
+     * @param key idempotency key
+     * @param inFlightTtl how long an unfinished reservation is kept before it expires
+     * @return reservation result
+     */
+    Mono<Reservation> reserve(String key, Duration inFlightTtl);
+
+    /**
+     * Store the response for an owned key
+     * Only the reservation identified by the token is replaced: if it expired and another request
+     * reserved the key meanwhile, that request's entry is left alone.
+     *
+     * @param key idempotency key
+     * @param token owner token of the reservation
+     * @param response serialized response to replay for duplicates
+     * @param ttl how long the response is kept
+     */
+    Mono<Void> complete(String key, Object token, IdempotentResponse response, Duration ttl);
+
+    /**
+     * Release an owned key without storing a response, so the next duplicate is executed again
+     * Like {@link #complete}, it never removes a reservation made by another owner.
+     *
+     * @param key idempotency key
+     * @param token owner token of the reservation
+     */
+    Mono<Void> release(String key, Object token);
+
+    /**
+     * Result of a reservation attempt
+     *
+     * @param acquired true if the caller owns the key and must execute the request
+     * @param token for the owner: opaque token identifying its reservation, null for duplicates
+     * @param response for duplicates: emits the stored response once the owner completes,
+     *                 or completes empty if the owner released the key
+     */
+    record Reservation(boolean acquired, Object token, Mono<IdempotentResponse> response) {
+
+        public static Reservation owner(Object token) {
+            return new Reservation(true, token, Mono.empty());
+        }
+
+        public static Reservation duplicate(Mono<IdempotentResponse> response) {
+            return new Reservation(false, null, response);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package kg.demirbank.psp.idempotency;
+
+/**
+ * Stored response of the first execution for an idempotency key
+ * Replayed byte-for-byte for duplicate requests with the same request fingerprint
+ *
+ * @param statusCode HTTP status code
+ * @param contentType response content type, may be null
+ * @param body raw response body bytes
+ * @param requestHash SHA-256 (hex) of the request that produced it, see IdempotencyKeyResolver
+ */
+public record IdempotentResponse(int statusCode, String contentType, byte[] body, String requestHash) {
+
+    /**
+     * Approximate memory footprint used for store weighing
+     */
+    public int weight() {
+        return body.length + (contentType != null ? contentType.length() : 0) + requestHash.length() + 32;
+    }
+}
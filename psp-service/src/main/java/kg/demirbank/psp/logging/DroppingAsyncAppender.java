@@ -0,0 +1,82 @@
+package kg.demirbank.psp.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AsyncAppenderBase;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback AsyncAppender that counts the events it discards
+ * The queue is a bounded array; once less than discardingThreshold slots are free, TRACE/DEBUG/INFO
+ * events are dropped instead of queued. With neverBlock a full queue drops any event rather than
+ * stalling the logging thread. Both are exposed as logging.events.discarded, by reason.
+ */
+public class DroppingAsyncAppender extends AsyncAppender {
+
+    private static final LongAdder DISCARDED = new LongAdder();
+    private static final LongAdder QUEUE_FULL = new LongAdder();
+
+    /**
+     * Queue of the base class, offered to directly so a failed offer is seen; null if not accessible
+     */
+    private BlockingQueue<ILoggingEvent> queue;
+
+    /**
+     * Events discarded by level below the discarding threshold, by all instances since start
+     */
+    public static long getDiscardedCount() {
+        return DISCARDED.sum();
+    }
+
+    /**
+     * Events dropped on a full queue with neverBlock, by all instances since start
+     */
+    public static long getQueueFullCount() {
+        return QUEUE_FULL.sum();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void start() {
+        super.start();
+        if (!isStarted()) {
+            return;
+        }
+        try {
+            // The base class offers to its package-private queue and ignores the result
+            Field field = AsyncAppenderBase.class.getDeclaredField("blockingQueue");
+            field.setAccessible(true);
+            queue = (BlockingQueue<ILoggingEvent>) field.get(this);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            addWarn("Queue of [" + getName() + "] not accessible, full-queue drops are not counted", e);
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (queue == null || !isNeverBlock()) {
+            super.append(event);
+            return;
+        }
+        // Same steps as the base class, which cannot report a failed offer
+        if (isQueueBelowDiscardingThreshold() && isDiscardable(event)) {
+            return;
+        }
+        preprocess(event);
+        if (!queue.offer(event)) {
+            QUEUE_FULL.increment();
+        }
+    }
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        boolean discardable = super.isDiscardable(event);
+        if (discardable) {
+            DISCARDED.increment();
+        }
+        return discardable;
+    }
+}
@@ -0,0 +1,127 @@
+package kg.demirbank.psp.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Logback encoder writing one JSON object per event
+ * Fields are appended straight into a reused per-thread buffer: timestamp, level, logger, thread,
+ * message, every MDC entry as a top-level field (correlationId, transactionId, traceId, ...) and
+ * the stack trace. Runs on the async appender worker, not on request threads.
+ */
+public class JsonLineEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+
+    /**
+     * Output buffer of one thread, with the formatted timestamp up to the second of the last event
+     */
+    private static final class Buffer {
+        private final StringBuilder out = new StringBuilder(512);
+        private long second = Long.MIN_VALUE;
+        private String secondPrefix;
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        Buffer buffer = buffers.get();
+        StringBuilder out = buffer.out;
+        out.setLength(0);
+        out.append("{\"@timestamp\":\"");
+        timestamp(buffer, event.getTimeStamp());
+        out.append('"');
+        field(out, "level", event.getLevel().toString());
+        field(out, "logger", event.getLoggerName());
+        field(out, "thread", event.getThreadName());
+        field(out, "message", event.getFormattedMessage());
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null) {
+            mdc.forEach((key, value) -> field(out, key, value));
+        }
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            field(out, "exception", ThrowableProxyUtil.asString(throwable));
+        }
+        out.append("}\n");
+        byte[] bytes = out.toString().getBytes(StandardCharsets.UTF_8);
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            // A huge stack trace should not stay allocated for the life of the thread
+            buffers.remove();
+        }
+        return bytes;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    /**
+     * ISO-8601 UTC with milliseconds; the part up to the second is formatted once per second
+     */
+    private static void timestamp(Buffer buffer, long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != buffer.second) {
+            buffer.secondPrefix = SECONDS.format(LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC));
+            buffer.second = second;
+        }
+        int millis = (int) Math.floorMod(epochMillis, 1000);
+        buffer.out.append(buffer.secondPrefix).append('.')
+                .append((char) ('0' + millis / 100))
+                .append((char) ('0' + millis / 10 % 10))
+                .append((char) ('0' + millis % 10))
+                .append('Z');
+    }
+
+    private static void field(StringBuilder out, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        out.append(",\"");
+        escape(out, name);
+        out.append("\":\"");
+        escape(out, value);
+        out.append('"');
+    }
+
+    /**
+     * Appends the value JSON-escaped; runs without special characters are copied in one call
+     */
+    private static void escape(StringBuilder out, String value) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.append(value, start, i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        out.append(value, start, value.length());
+    }
+}
@@ -0,0 +1,58 @@
+package kg.demirbank.psp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import kg.demirbank.psp.util.LoggingUtil;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the INFO/DEBUG lines of one request in {@code keepOneIn} for the configured loggers
+ * The decision is taken from the correlation ID, so a kept request keeps all its lines and a
+ * dropped one loses all of them. Lines without a correlation ID are not request traffic (scheduled
+ * tasks, consumers, lifecycle) and always pass, as do WARN and ERROR. Runs on the logging thread
+ * before the event is built, which is the cheapest place to drop.
+ */
+public class RequestSamplingFilter extends TurboFilter {
+
+    private final List<String> loggers = new ArrayList<>();
+    private int keepOneIn = 1;
+
+    /**
+     * Logger name to sample (prefix match), may be repeated
+     */
+    public void addLogger(String logger) {
+        loggers.add(logger);
+    }
+
+    public void setKeepOneIn(int keepOneIn) {
+        this.keepOneIn = Math.max(1, keepOneIn);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (keepOneIn == 1 || level == null || level.isGreaterOrEqual(Level.WARN) || !isSampled(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        String correlationId = MDC.get(LoggingUtil.CORRELATION_ID);
+        if (correlationId == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return Math.floorMod(correlationId.hashCode(), keepOneIn) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean isSampled(String name) {
+        for (String prefix : loggers) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,53 @@
+package kg.demirbank.psp.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-stage observations of the payment flows (psp.flow.stage)
+ * Each stage is a timer and a tracing span named "<flow> <stage>". Flow and stage names are
+ * constants of the calling service and the outcome is one of success/error/cancelled, so the
+ * number of series is fixed by the code, not by traffic.
+ */
+@Component
+@RequiredArgsConstructor
+public class FlowMetrics {
+
+    public static final String STAGE_TIMER = "psp.flow.stage";
+
+    public static final String STAGE_DB_FIND = "db.find";
+    public static final String STAGE_DB_SAVE = "db.save";
+    public static final String STAGE_BANK_CHECK = "bank.check";
+    public static final String STAGE_BANK_CREATE = "bank.create";
+    public static final String STAGE_OPERATOR_CHECK = "operator.check";
+    public static final String STAGE_OPERATOR_CREATE = "operator.create";
+    public static final String STAGE_OPERATOR_EXECUTE = "operator.execute";
+
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * Observe the stage from subscription until it completes, fails or is cancelled
+     */
+    public <T> Mono<T> time(String flow, String stage, Mono<T> mono) {
+        return ReactiveObservations.observe(() -> stage(flow, stage), mono);
+    }
+
+    /**
+     * Observe a blocking stage running on the caller's thread
+     */
+    public <T> T time(String flow, String stage, Supplier<T> call) {
+        return ReactiveObservations.observe(stage(flow, stage), call);
+    }
+
+    private Observation stage(String flow, String stage) {
+        return Observation.createNotStarted(STAGE_TIMER, observationRegistry)
+                .contextualName(flow + " " + stage)
+                .lowCardinalityKeyValue("flow", flow)
+                .lowCardinalityKeyValue("stage", stage);
+    }
+}
@@ -0,0 +1,66 @@
+package kg.demirbank.psp.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.function.Supplier;
+
+/**
+ * Observation (timer and tracing span) around a Mono
+ * The parent is taken from the Reactor context, where WebFlux keeps the request observation, and
+ * the new observation is put there for the wrapped Mono, so WebClient calls and nested stages
+ * become its children. An "outcome" key (success/error/cancelled) is added when it stops.
+ */
+public final class ReactiveObservations {
+
+    private ReactiveObservations() {
+    }
+
+    /**
+     * Observe each subscription to the Mono with a fresh observation from the factory
+     */
+    public static <T> Mono<T> observe(Supplier<Observation> factory, Mono<T> mono) {
+        return Mono.deferContextual(context -> {
+            Observation observation = factory.get();
+            Observation parent = context.getOrDefault(ObservationThreadLocalAccessor.KEY, null);
+            if (parent != null) {
+                observation.parentObservation(parent);
+            }
+            observation.start();
+            return mono
+                    .doOnError(observation::error)
+                    .doFinally(signal -> observation
+                            .lowCardinalityKeyValue("outcome", outcomeOf(signal))
+                            .stop())
+                    .contextWrite(ctx -> ctx.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    /**
+     * Observe a blocking call on the caller's thread; the observation is current while it runs
+     */
+    public static <T> T observe(Observation observation, Supplier<T> call) {
+        observation.start();
+        String outcome = "error";
+        try (Observation.Scope ignored = observation.openScope()) {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
+    }
+
+    private static String outcomeOf(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package kg.demirbank.psp.metrics;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * W3C trace context of the current span, for messages that leave the request thread
+ * Webhook events are published later by the outbox publisher; the traceparent captured here
+ * travels with the event and lets the consumer continue the originating trace.
+ */
+@Component
+public class TraceParents {
+
+    /**
+     * W3C header, also used as AMQP header name
+     */
+    public static final String HEADER = "traceparent";
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public TraceParents(ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+    }
+
+    /**
+     * traceparent of the current span, null outside a trace
+     */
+    public String current() {
+        Span span = tracer.currentSpan();
+        if (span == null) {
+            return null;
+        }
+        Map<String, String> carrier = new HashMap<>(4);
+        propagator.inject(span.context(), carrier, Map::put);
+        return carrier.get(HEADER);
+    }
+
+    /**
+     * Post processor setting the traceparent header on an outgoing AMQP message, if there is one
+     */
+    public static MessagePostProcessor header(String traceParent) {
+        return message -> {
+            if (traceParent != null) {
+                message.getMessageProperties().setHeader(HEADER, traceParent);
+            }
+            return message;
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package kg.demirbank.psp.perflab;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency and error injection for a stubbed dependency
+ * Latency is log-normal with the configured median and 99th percentile, which gives the long
+ * right tail typical for network calls.
+ */
+public class FaultModel {
+
+    /**
+     * z-score of the 99th percentile of the standard normal distribution
+     */
+    private static final double Z_99 = 2.3263;
+
+    private final double mu;
+    private final double sigma;
+    private final double errorRate;
+    private final int[] errorStatuses;
+
+    public FaultModel(PerflabProperties.Endpoint endpoint) {
+        long median = Math.max(1, endpoint.getLatencyMedianMs());
+        long p99 = Math.max(median, endpoint.getLatencyP99Ms());
+        this.mu = Math.log(median);
+        this.sigma = (Math.log(p99) - mu) / Z_99;
+        this.errorRate = endpoint.getErrorRate();
+        List<Integer> statuses = endpoint.getErrorStatuses();
+        this.errorStatuses = statuses == null || statuses.isEmpty()
+                ? new int[]{500}
+                : statuses.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Sample response latency
+     */
+    public Duration nextLatency() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis = Math.exp(mu + sigma * random.nextGaussian());
+        return Duration.ofNanos((long) (millis * 1_000_000));
+    }
+
+    /**
+     * Sample injected error status
+     *
+     * @return HTTP status to fail with, or 0 for a successful response
+     */
+    public int nextErrorStatus() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (errorRate <= 0 || random.nextDouble() >= errorRate) {
+            return 0;
+        }
+        return errorStatuses[random.nextInt(errorStatuses.length)];
+    }
+}
@@ -0,0 +1,94 @@
+package kg.demirbank.psp.perflab;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Span exporter appending finished spans to a file, one JSON object per line
+ * Lets the lab inspect traces without a collector: group lines by traceId and follow parentSpanId.
+ * Called from the batch span processor thread, never on the request path.
+ */
+@Slf4j
+public class FileSpanExporter implements SpanExporter {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path file;
+    private Writer writer;
+
+    public FileSpanExporter(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            if (writer == null) {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                log.info("Writing tracing spans to {}", file.toAbsolutePath());
+            }
+            for (SpanData span : spans) {
+                writer.write(toJson(span));
+                writer.write('\n');
+            }
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Cannot write spans to {}: {}", file, e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Cannot close span file {}: {}", file, e.getMessage());
+            }
+            writer = null;
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private String toJson(SpanData span) throws JsonProcessingException {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("traceId", span.getTraceId());
+        line.put("spanId", span.getSpanId());
+        line.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+        line.put("name", span.getName());
+        line.put("kind", span.getKind().name());
+        line.put("start", Instant.ofEpochSecond(0, span.getStartEpochNanos()).toString());
+        line.put("durationUs", TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()));
+        line.put("status", span.getStatus().getStatusCode().name());
+        line.put("attributes", attributes);
+        return objectMapper.writeValueAsString(line);
+    }
+}
@@ -0,0 +1,181 @@
+package kg.demirbank.psp.perflab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import kg.demirbank.psp.dto.webhook.WebhookMessageDto;
+import kg.demirbank.psp.metrics.ReactiveObservations;
+import kg.demirbank.psp.service.impl.WebhookConsumer;
+import kg.demirbank.psp.service.impl.WebhookRetryPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.micrometer.RabbitListenerObservation;
+import org.springframework.amqp.rabbit.support.micrometer.RabbitMessageReceiverContext;
+import org.springframework.beans.factory.ObjectProvider;
+
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RabbitTemplate replacement delivering webhook messages in-process
+ * Messages are still serialized by the configured converter, then handed to the webhook consumer
+ * through a bounded queue instead of the broker. Like broker prefetch, at most {@code prefetch}
+ * deliveries are in flight; the next message is dispatched when a delivery completes.
+ * Publisher confirms are emulated: accepted messages are acked, messages over capacity are nacked
+ * (and retried by the outbox publisher). Retry tiers are emulated with a timer, DLQ messages are
+ * only counted. No broker connection is opened.
+ * Each delivery is observed like a listener container would, so traces continue from the
+ * traceparent header across the channel.
+ */
+@Slf4j
+public class InMemoryWebhookChannel extends RabbitTemplate {
+
+    /**
+     * Queue name reported on delivered messages, names the receive span
+     */
+    private static final String QUEUE_NAME = "in-memory";
+
+    private final ObjectProvider<WebhookConsumer> consumer;
+    private final ObjectMapper objectMapper;
+    private final ObservationRegistry observationRegistry;
+    private final int prefetch;
+    private final int capacity;
+    private final Queue<Message> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+
+    public InMemoryWebhookChannel(ConnectionFactory connectionFactory,
+                                  ObjectProvider<WebhookConsumer> consumer,
+                                  ObjectMapper objectMapper,
+                                  ObservationRegistry observationRegistry,
+                                  PerflabProperties.Channel properties) {
+        super(connectionFactory);
+        this.consumer = consumer;
+        this.objectMapper = objectMapper;
+        this.observationRegistry = observationRegistry;
+        this.prefetch = Math.max(1, properties.getPrefetch());
+        this.capacity = Math.max(1, properties.getCapacity());
+    }
+
+    /**
+     * Scoped operations run against this template; there is no channel to bind
+     */
+    @Override
+    public <T> T invoke(RabbitOperations.OperationsCallback<T> action,
+                        com.rabbitmq.client.ConfirmCallback acks,
+                        com.rabbitmq.client.ConfirmCallback nacks) {
+        return action.doInRabbit(this);
+    }
+
+    @Override
+    public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        if (WebhookRetryPolicy.RETRY_EXCHANGE.equals(exchange)) {
+            long delayMs = WebhookRetryPolicy.delayOf(routingKey);
+            if (delayMs < 0) {
+                deadLettered.increment();
+                log.warn("Webhook message dead-lettered: {}",
+                        (Object) message.getMessageProperties().getHeader(WebhookRetryPolicy.ERROR_HEADER));
+            } else {
+                Mono.delay(Duration.ofMillis(delayMs)).subscribe(tick -> enqueue(exchange, routingKey, message, null));
+            }
+            confirm(correlationData, true, null);
+            return;
+        }
+        enqueue(exchange, routingKey, message, correlationData);
+    }
+
+    private void enqueue(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        if (pendingCount.incrementAndGet() > capacity) {
+            pendingCount.decrementAndGet();
+            dropped.increment();
+            log.warn("In-memory webhook channel is full, message to {}/{} dropped", exchange, routingKey);
+            confirm(correlationData, false, "in-memory channel full");
+            return;
+        }
+        pending.add(message);
+        confirm(correlationData, true, null);
+        drain();
+    }
+
+    private static void confirm(CorrelationData correlationData, boolean ack, String reason) {
+        if (correlationData != null) {
+            correlationData.getFuture().complete(new CorrelationData.Confirm(ack, reason));
+        }
+    }
+
+    /**
+     * Dispatch pending messages while the in-flight window has room
+     */
+    private void drain() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= prefetch || pending.isEmpty()) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Message message = pending.poll();
+            if (message == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            pendingCount.decrementAndGet();
+            deliver(message);
+        }
+    }
+
+    private void deliver(Message message) {
+        WebhookMessageDto webhookMessage;
+        try {
+            webhookMessage = objectMapper.readValue(message.getBody(), WebhookMessageDto.class);
+        } catch (IOException e) {
+            log.error("Cannot read webhook message from in-memory channel", e);
+            inFlight.decrementAndGet();
+            return;
+        }
+        Integer attempt = message.getMessageProperties().getHeader(WebhookRetryPolicy.ATTEMPT_HEADER);
+        message.getMessageProperties().setConsumerQueue(QUEUE_NAME);
+        Mono<Void> delivery = consumer.getObject().processWebhook(webhookMessage, attempt);
+        ReactiveObservations.observe(() -> RabbitListenerObservation.LISTENER_OBSERVATION.observation(null,
+                        RabbitListenerObservation.DefaultRabbitListenerObservationConvention.INSTANCE,
+                        () -> new RabbitMessageReceiverContext(message, "perflab"), observationRegistry), delivery)
+                .doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    drain();
+                })
+                .subscribe();
+    }
+
+    /**
+     * Messages waiting for a consumer
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Messages routed to the DLQ after the last retry
+     */
+    public long getDeadLetteredCount() {
+        return deadLettered.sum();
+    }
+
+    /**
+     * Messages rejected (nacked) because the channel was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
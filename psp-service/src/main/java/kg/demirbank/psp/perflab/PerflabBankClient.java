@@ -0,0 +1,74 @@
+package kg.demirbank.psp.perflab;
+
+import kg.demirbank.psp.dto.bank.request.BankCheckRequestDto;
+import kg.demirbank.psp.dto.bank.request.BankCreateRequestDto;
+import kg.demirbank.psp.dto.bank.response.BankCheckResponseDto;
+import kg.demirbank.psp.dto.bank.response.BankTransactionResponseDto;
+import kg.demirbank.psp.exception.PspException;
+import kg.demirbank.psp.exception.network.ExternalServerNotAvailableException;
+import kg.demirbank.psp.exception.network.SupplierNotAvailableException;
+import kg.demirbank.psp.exception.network.SystemErrorException;
+import kg.demirbank.psp.exception.security.AccessDeniedException;
+import kg.demirbank.psp.exception.validation.IncorrectRequestDataException;
+import kg.demirbank.psp.exception.validation.MaxAmountNotValidException;
+import kg.demirbank.psp.exception.validation.MinAmountNotValidException;
+import kg.demirbank.psp.exception.validation.RecipientDataIncorrectException;
+import kg.demirbank.psp.service.clients.BankClient;
+import kg.demirbank.psp.service.clients.impl.BankClientImpl;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bank client with injected latency and errors
+ * The bank integration is an in-process mock, so instead of an HTTP stub the mock is wrapped
+ * to behave like a remote dependency.
+ */
+@Component
+@Primary
+@Profile("perflab")
+public class PerflabBankClient implements BankClient {
+
+    private final BankClientImpl delegate;
+    private final FaultModel faults;
+
+    public PerflabBankClient(BankClientImpl delegate, PerflabProperties properties) {
+        this.delegate = delegate;
+        this.faults = new FaultModel(properties.getBank());
+    }
+
+    @Override
+    public Mono<BankCheckResponseDto> checkAccount(BankCheckRequestDto request) {
+        return withFaults(delegate.checkAccount(request));
+    }
+
+    @Override
+    public Mono<BankTransactionResponseDto> createTransaction(BankCreateRequestDto request) {
+        return withFaults(delegate.createTransaction(request));
+    }
+
+    private <T> Mono<T> withFaults(Mono<T> call) {
+        return Mono.defer(() -> {
+            int errorStatus = faults.nextErrorStatus();
+            Mono<T> result = errorStatus != 0 ? Mono.error(injectedError(errorStatus)) : call;
+            return Mono.delay(faults.nextLatency()).then(result);
+        });
+    }
+
+    /**
+     * Same exception per status as operator error mapping
+     */
+    private static PspException injectedError(int status) {
+        return switch (status) {
+            case 452 -> new RecipientDataIncorrectException("The recipient's data is incorrect");
+            case 453 -> new AccessDeniedException("Access to the system is denied");
+            case 454 -> new IncorrectRequestDataException("Incorrect data in the request");
+            case 455 -> new MinAmountNotValidException("Min amount not valid");
+            case 456 -> new MaxAmountNotValidException("Max amount not valid");
+            case 523 -> new SupplierNotAvailableException("Supplier not available");
+            case 524 -> new ExternalServerNotAvailableException("External server is not available");
+            default -> new SystemErrorException("System error");
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package kg.demirbank.psp.perflab;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import kg.demirbank.psp.service.impl.WebhookConsumer;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.nio.file.Path;
+
+/**
+ * Perf-lab runtime: local stand-ins for RabbitMQ, operator, bank and keys
+ * Oracle is replaced by H2 in application-perflab.yml; spans are written to perflab.span-file.
+ */
+@Configuration
+@Profile("perflab")
+public class PerflabConfig {
+
+    @Bean
+    @Primary
+    public InMemoryWebhookChannel inMemoryWebhookChannel(ConnectionFactory connectionFactory,
+                                                         Jackson2JsonMessageConverter messageConverter,
+                                                         ObjectProvider<WebhookConsumer> webhookConsumer,
+                                                         ObjectMapper objectMapper,
+                                                         ObservationRegistry observationRegistry,
+                                                         PerflabProperties properties) {
+        InMemoryWebhookChannel channel = new InMemoryWebhookChannel(connectionFactory, webhookConsumer,
+                objectMapper, observationRegistry, properties.getChannel());
+        channel.setMessageConverter(messageConverter);
+        return channel;
+    }
+
+    /**
+     * Local span exporter, picked up by the tracing auto-configuration next to OTLP if configured
+     */
+    @Bean
+    public FileSpanExporter fileSpanExporter(PerflabProperties properties) {
+        return new FileSpanExporter(Path.of(properties.getSpanFile()));
+    }
+}
@@ -0,0 +1,64 @@
+package kg.demirbank.psp.perflab;
+
+import kg.demirbank.psp.config.SecurityConfig;
+import kg.demirbank.psp.security.KeyManagementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Base64;
+
+/**
+ * Key management with a key pair generated at startup
+ * The same pair stands in for both the operator and the PSP keys. PEM files are written to
+ * perflab.key-dir so load generators can sign requests the service will accept.
+ */
+@Service
+@Primary
+@Profile("perflab")
+@Slf4j
+public class PerflabKeyManagementService extends KeyManagementService {
+
+    private final KeyPair keyPair;
+
+    public PerflabKeyManagementService(SecurityConfig securityConfig, PerflabProperties properties)
+            throws NoSuchAlgorithmException, IOException {
+        super(securityConfig);
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.keyPair = generator.generateKeyPair();
+        writeKeys(Path.of(properties.getKeyDir()));
+    }
+
+    @Override
+    public PublicKey getOperatorPublicKey() {
+        return keyPair.getPublic();
+    }
+
+    @Override
+    public PrivateKey getPspPrivateKey() {
+        return keyPair.getPrivate();
+    }
+
+    private void writeKeys(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("private.pem"), pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        Files.writeString(dir.resolve("public.pem"), pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+        log.info("Perf-lab key pair written to: {}", dir.toAbsolutePath());
+    }
+
+    private static String pem(String type, byte[] encoded) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(encoded)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,96 @@
+package kg.demirbank.psp.perflab;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Perf-lab configuration properties
+ */
+@Configuration
+@Profile("perflab")
+@ConfigurationProperties(prefix = "perflab")
+@Data
+public class PerflabProperties {
+
+    /**
+     * Directory where the generated RSA key pair is written as PEM files (used by load generators)
+     */
+    private String keyDir = "perflab-keys";
+
+    /**
+     * Embedded stub server for operator API and merchant webhooks
+     */
+    private Stub stub = new Stub();
+
+    /**
+     * Stub operator behaviour
+     */
+    private Endpoint operator = new Endpoint();
+
+    /**
+     * Stub merchant webhook endpoint behaviour
+     */
+    private Endpoint webhook = new Endpoint();
+
+    /**
+     * In-process bank client behaviour
+     */
+    private Endpoint bank = new Endpoint();
+
+    /**
+     * In-memory webhook channel replacing RabbitMQ
+     */
+    private Channel channel = new Channel();
+
+    /**
+     * File the finished tracing spans are appended to as JSON lines
+     */
+    private String spanFile = "build/perflab/spans.jsonl";
+
+    @Data
+    public static class Stub {
+        private String host = "127.0.0.1";
+        private int port = 18081;
+    }
+
+    @Data
+    public static class Endpoint {
+        /**
+         * Median response latency, log-normal distribution
+         */
+        private long latencyMedianMs = 20;
+
+        /**
+         * 99th percentile response latency
+         */
+        private long latencyP99Ms = 150;
+
+        /**
+         * Fraction of requests answered with an injected error, 0.0 - 1.0
+         */
+        private double errorRate = 0.0;
+
+        /**
+         * HTTP statuses picked uniformly for injected errors
+         */
+        private List<Integer> errorStatuses = new ArrayList<>(List.of(452, 453, 454, 455, 456, 500, 523, 524));
+    }
+
+    @Data
+    public static class Channel {
+        /**
+         * Max deliveries in flight, like broker prefetch
+         */
+        private int prefetch = 250;
+
+        /**
+         * Max pending messages, further messages are dropped and counted
+         */
+        private int capacity = 100000;
+    }
+}
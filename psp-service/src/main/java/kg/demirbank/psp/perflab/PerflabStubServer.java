@@ -0,0 +1,120 @@
+package kg.demirbank.psp.perflab;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kg.demirbank.psp.enums.Status;
+import kg.demirbank.psp.enums.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Embedded stub for the operator API and merchant webhook endpoints
+ * Answers with canned JSON after a sampled latency; a configured share of requests fails with
+ * one of the operator error statuses (452-456, 523, 524) to exercise error mapping.
+ */
+@Component
+@Profile("perflab")
+@RequiredArgsConstructor
+@Slf4j
+public class PerflabStubServer {
+
+    private static final String OPERATOR_PATH = "/psp/api/v1/payment/qr/{version}/tx";
+
+    private final PerflabProperties properties;
+
+    private FaultModel operatorFaults;
+    private FaultModel webhookFaults;
+    private DisposableServer server;
+
+    @PostConstruct
+    public void start() {
+        operatorFaults = new FaultModel(properties.getOperator());
+        webhookFaults = new FaultModel(properties.getWebhook());
+
+        server = HttpServer.create()
+                .host(properties.getStub().getHost())
+                .port(properties.getStub().getPort())
+                .route(routes -> routes
+                        .post(OPERATOR_PATH + "/check", (request, response) ->
+                                respond(request, response, operatorFaults, PerflabStubServer::checkJson))
+                        .post(OPERATOR_PATH + "/create", (request, response) ->
+                                respond(request, response, operatorFaults,
+                                        () -> transactionJson(newTransactionId(), Status.CREATED)))
+                        .post(OPERATOR_PATH + "/execute/{id}", (request, response) ->
+                                respond(request, response, operatorFaults,
+                                        () -> transactionJson(request.param("id"), Status.SUCCESS)))
+                        .get(OPERATOR_PATH + "/get/{id}", (request, response) ->
+                                respond(request, response, operatorFaults,
+                                        () -> transactionJson(request.param("id"), Status.SUCCESS)))
+                        .post(OPERATOR_PATH + "/update/{id}", (request, response) ->
+                                respond(request, response, operatorFaults, () -> ""))
+                        .post("/webhook/{merchant}", (request, response) ->
+                                respond(request, response, webhookFaults, () -> "OK")))
+                .bindNow();
+
+        log.info("Perf-lab stub server listening on {}:{}", server.host(), server.port());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    /**
+     * Drain request body, wait sampled latency, then answer with body or injected error
+     */
+    private Publisher<Void> respond(HttpServerRequest request, HttpServerResponse response,
+                                    FaultModel faults, Supplier<String> body) {
+        int errorStatus = faults.nextErrorStatus();
+        return request.receive().then()
+                .then(Mono.delay(faults.nextLatency()))
+                .then(Mono.defer(() -> {
+                    String json = errorStatus != 0
+                            ? "{\"code\":" + errorStatus + ",\"message\":\"Injected error\"}"
+                            : body.get();
+                    return response
+                            .status(errorStatus != 0 ? HttpResponseStatus.valueOf(errorStatus) : HttpResponseStatus.OK)
+                            .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                            .sendString(Mono.just(json))
+                            .then();
+                }));
+    }
+
+    private static String checkJson() {
+        return "{\"beneficiaryName\":\"c***e A***o\",\"transactionType\":" + TransactionType.C2C.getCode() + "}";
+    }
+
+    private static String transactionJson(String transactionId, Status status) {
+        String now = LocalDateTime.now().toString();
+        return "{\"transactionId\":\"" + transactionId + "\""
+                + ",\"status\":" + status.getCode()
+                + ",\"transactionType\":" + TransactionType.C2C.getCode()
+                + ",\"amount\":100000,\"commission\":0"
+                + ",\"createdDate\":\"" + now + "\""
+                + (status == Status.SUCCESS ? ",\"executedDate\":\"" + now + "\"" : "")
+                + "}";
+    }
+
+    /**
+     * Transaction ID that also fits operations.receipt_id (20 characters), the PSP stores it as receipt ID
+     */
+    private static String newTransactionId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+    }
+}
@@ -0,0 +1,204 @@
+package kg.demirbank.psp.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebFilter enforcing operator rate limits from reliability/ratelimiting.md
+ * Per PSP: 1000 requests/minute keyed by H-PSP-ID, per transaction: 10 requests/5 minutes keyed by
+ * the {transactionId} path variable of execute/update. Runs before body reading, signature
+ * verification and any database work; throttled requests get a precomputed 429.
+ */
+@Component
+@Order(5)
+@Slf4j
+public class RateLimitFilter implements WebFilter {
+
+    public static final String PSP_ID_HEADER = "H-PSP-ID";
+
+    private static final PathPattern INBOUND = PathPatternParser.defaultInstance.parse("/in/qr/**");
+    private static final PathPattern INBOUND_EXECUTE =
+            PathPatternParser.defaultInstance.parse("/in/qr/{version}/tx/execute/{transactionId}");
+    private static final PathPattern INBOUND_UPDATE =
+            PathPatternParser.defaultInstance.parse("/in/qr/{version}/tx/update/{transactionId}");
+
+    private static final byte[] PSP_LIMIT_BODY = ("{\"code\":429,\"message\":"
+            + "\"Too many requests for PSP\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TRANSACTION_LIMIT_BODY = ("{\"code\":429,\"message\":"
+            + "\"Too many requests for transaction\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+    private final long pspCapacity;
+    private final long pspPeriodNanos;
+    private final long transactionCapacity;
+    private final long transactionPeriodNanos;
+    private final Cache<String, TokenBucket> pspBuckets;
+    private final Cache<String, TokenBucket> transactionBuckets;
+    private final SharedRateLimiter sharedRateLimiter;
+
+    private final LongAdder pspRejected = new LongAdder();
+    private final LongAdder transactionRejected = new LongAdder();
+
+    public RateLimitFilter(ObjectProvider<SharedRateLimiter> sharedRateLimiter,
+                           @Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.psp.capacity:1000}") long pspCapacity,
+                           @Value("${rate-limit.psp.period-ms:60000}") long pspPeriodMs,
+                           @Value("${rate-limit.transaction.capacity:10}") long transactionCapacity,
+                           @Value("${rate-limit.transaction.period-ms:300000}") long transactionPeriodMs,
+                           @Value("${rate-limit.max-buckets:100000}") long maxBuckets) {
+        this.enabled = enabled;
+        this.pspCapacity = pspCapacity;
+        this.pspPeriodNanos = TimeUnit.MILLISECONDS.toNanos(pspPeriodMs);
+        this.transactionCapacity = transactionCapacity;
+        this.transactionPeriodNanos = TimeUnit.MILLISECONDS.toNanos(transactionPeriodMs);
+        // A bucket idle for a full period is back at full capacity, so evicting it loses nothing
+        this.pspBuckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofMillis(pspPeriodMs))
+                .build();
+        this.transactionBuckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofMillis(transactionPeriodMs))
+                .build();
+        this.sharedRateLimiter = sharedRateLimiter.getIfAvailable();
+        log.info("Rate limit filter enabled: {}, shared limiter: {}", enabled,
+                this.sharedRateLimiter != null ? this.sharedRateLimiter.getClass().getSimpleName() : "none");
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        PathContainer path = request.getPath().pathWithinApplication();
+        if (!enabled || !INBOUND.matches(path)) {
+            return chain.filter(exchange);
+        }
+
+        long now = System.nanoTime();
+
+        String pspKey = "rl:" + resolvePspId(request);
+        long pspWait = pspBuckets.get(pspKey, k -> new TokenBucket(pspCapacity, pspPeriodNanos, now))
+                .tryAcquire(now);
+        if (pspWait > 0) {
+            pspRejected.increment();
+            log.warn("PSP rate limit exceeded for key: {}", pspKey);
+            return tooManyRequests(exchange, PSP_LIMIT_BODY, pspWait);
+        }
+
+        String transactionKey = null;
+        PathPattern.PathMatchInfo match = matchTransactionPath(path);
+        if (match != null) {
+            transactionKey = "rl:tx:" + match.getUriVariables().get("transactionId");
+            long txWait = transactionBuckets.get(transactionKey,
+                    k -> new TokenBucket(transactionCapacity, transactionPeriodNanos, now)).tryAcquire(now);
+            if (txWait > 0) {
+                transactionRejected.increment();
+                log.warn("Transaction rate limit exceeded for key: {}", transactionKey);
+                return tooManyRequests(exchange, TRANSACTION_LIMIT_BODY, txWait);
+            }
+        }
+
+        if (sharedRateLimiter == null) {
+            return chain.filter(exchange);
+        }
+        return checkShared(exchange, chain, pspKey, transactionKey);
+    }
+
+    /**
+     * Count request against the cluster-wide limits, failing open if the shared store is unavailable
+     */
+    private Mono<Void> checkShared(ServerWebExchange exchange, WebFilterChain chain,
+                                   String pspKey, String transactionKey) {
+        Mono<Boolean> pspAllowed = sharedRateLimiter
+                .tryAcquire(pspKey, pspCapacity, Duration.ofNanos(pspPeriodNanos));
+        Mono<Boolean> transactionAllowed = transactionKey == null
+                ? Mono.just(true)
+                : Mono.defer(() -> sharedRateLimiter.tryAcquire(transactionKey, transactionCapacity,
+                        Duration.ofNanos(transactionPeriodNanos)));
+
+        return pspAllowed
+                .onErrorResume(e -> {
+                    log.warn("Shared rate limiter failed, allowing request: {}", e.getMessage());
+                    return Mono.just(true);
+                })
+                .flatMap(allowed -> {
+                    if (!allowed) {
+                        pspRejected.increment();
+                        return tooManyRequests(exchange, PSP_LIMIT_BODY, pspPeriodNanos / pspCapacity);
+                    }
+                    return transactionAllowed
+                            .onErrorResume(e -> Mono.just(true))
+                            .flatMap(txAllowed -> {
+                                if (!txAllowed) {
+                                    transactionRejected.increment();
+                                    return tooManyRequests(exchange, TRANSACTION_LIMIT_BODY,
+                                            transactionPeriodNanos / transactionCapacity);
+                                }
+                                return chain.filter(exchange);
+                            });
+                });
+    }
+
+    /**
+     * Resolve PSP identifier, falling back to the remote address when the header is missing
+     */
+    private String resolvePspId(ServerHttpRequest request) {
+        String pspId = request.getHeaders().getFirst(PSP_ID_HEADER);
+        if (pspId != null && !pspId.isBlank()) {
+            return pspId;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null
+                ? "ip:" + remoteAddress.getAddress().getHostAddress()
+                : "unknown";
+    }
+
+    private PathPattern.PathMatchInfo matchTransactionPath(PathContainer path) {
+        PathPattern.PathMatchInfo match = INBOUND_EXECUTE.matchAndExtract(path);
+        return match != null ? match : INBOUND_UPDATE.matchAndExtract(path);
+    }
+
+    /**
+     * Write precomputed 429 response with Retry-After in whole seconds
+     */
+    private Mono<Void> tooManyRequests(ServerWebExchange exchange, byte[] body, long waitNanos) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    public long getPspRejectedCount() {
+        return pspRejected.sum();
+    }
+
+    public long getTransactionRejectedCount() {
+        return transactionRejected.sum();
+    }
+}
@@ -0,0 +1,23 @@
+package kg.demirbank.psp.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Optional cluster-wide rate limit counter
+ * When a bean of this type is present, requests admitted by the local buckets are also
+ * counted against a shared limit (e.g. Redis {@code rl:{pspId}:{minute}} / {@code rl:tx:{transactionId}}).
+ */
+public interface SharedRateLimiter {
+
+    /**
+     * Count one request against the shared limit
+     *
+     * @param key    rate limit key
+     * @param limit  max requests per window
+     * @param window limit window
+     * @return true if the request is within the limit
+     */
+    Mono<Boolean> tryAcquire(String key, long limit, Duration window);
+}
@@ -0,0 +1,42 @@
+package kg.demirbank.psp.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket
+ * Implemented as GCRA (virtual scheduling): the whole bucket state is a single theoretical arrival time,
+ * so acquiring a token is one CAS on an AtomicLong. A bucket of {@code capacity} tokens refilled over
+ * {@code period} admits a burst of {@code capacity} requests and then one request every period/capacity.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrivalNanos;
+
+    public TokenBucket(long capacity, long periodNanos, long nowNanos) {
+        this.emissionIntervalNanos = Math.max(1, periodNanos / Math.max(1, capacity));
+        this.burstToleranceNanos = periodNanos - emissionIntervalNanos;
+        this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Try to take one token
+     *
+     * @param nowNanos current monotonic time
+     * @return 0 if the token was taken, otherwise nanoseconds until the next token becomes available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrivalNanos.get();
+            long base = Math.max(tat, nowNanos);
+            long waitNanos = base - burstToleranceNanos - nowNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(tat, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -2,8 +2,12 @@ package kg.demirbank.psp.repository;
 
 import kg.demirbank.psp.entity.MerchantWebhookEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,5 +26,14 @@ public interface MerchantWebhookRepository extends JpaRepository<MerchantWebhook
      * @return Optional containing the merchant webhook entity if found
      */
     Optional<MerchantWebhookEntity> findByAppIdIgnoreCaseAndIsActive(String appId, Boolean isActive);
+    
+    /**
+     * Find merchant webhooks created or updated at or after the given time
+     * Used by the in-memory registry for incremental refresh (inactive rows included)
+     * 
+     * @param since watermark of the previous refresh
+     * @return changed merchant webhooks
+     */
+    @Query("SELECT m FROM MerchantWebhookEntity m WHERE m.createdAt >= :since OR m.updatedAt >= :since")
+    List<MerchantWebhookEntity> findChangedSince(@Param("since") LocalDateTime since);
 }
-
@@ -1,17 +1,25 @@
 package kg.demirbank.psp.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import kg.demirbank.psp.entity.OperationEntity;
 import kg.demirbank.psp.enums.CustomerType;
 import kg.demirbank.psp.enums.OperationType;
 import kg.demirbank.psp.enums.Status;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for OperationEntity
@@ -177,7 +185,7 @@ public interface OperationRepository extends JpaRepository<OperationEntity, Long
      * Used to link makePayment to previous check when checkSessionId is not provided
      */
     @Query("SELECT o FROM OperationEntity o WHERE " +
-           "o.operationType = 'CHECK' AND " +
+           "o.operationType = kg.demirbank.psp.enums.OperationType.CHECK AND " +
            "o.transferDirection = 'OUT' AND " +
            "o.qrLinkHash = :qrLinkHash AND " +
            "o.merchantProvider = :merchantProvider AND " +
@@ -186,4 +194,127 @@ public interface OperationRepository extends JpaRepository<OperationEntity, Long
     List<OperationEntity> findRecentCheckByQrHash(@Param("qrLinkHash") String qrLinkHash,
                                                   @Param("merchantProvider") String merchantProvider,
                                                   @Param("since") LocalDateTime since);
+
+    /**
+     * Lock outgoing operations with operator transaction ID that stay in the given status, were not
+     * updated since the specified time and have poll attempts left (oldest first)
+     * Rows locked by another poller instance are skipped (lock timeout -2 is SKIP LOCKED). Oracle locks
+     * SKIP LOCKED rows as they are fetched, so taking the first N rows of the stream claims the next N
+     * free rows; no row limit in the query, which Oracle rejects together with FOR UPDATE.
+     * Must run inside a transaction and be closed before it commits.
+     * Used by the GET fallback poller when no UPDATE callback arrived
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints({
+            @QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"),
+            @QueryHint(name = "org.hibernate.fetchSize", value = "50")
+    })
+    @Query("SELECT o FROM OperationEntity o WHERE " +
+           "o.transferDirection = 'OUT' AND " +
+           "o.status = :status AND " +
+           "o.transactionId IS NOT NULL AND " +
+           "o.updatedAt < :before AND " +
+           "o.retryCount < o.maxRetries " +
+           "ORDER BY o.updatedAt ASC")
+    Stream<OperationEntity> lockStaleOutgoingByStatus(@Param("status") Status status,
+                                                      @Param("before") LocalDateTime before);
+
+    /**
+     * Claim locked operations for one poll cycle
+     * Moving updatedAt keeps them out of the stale window of other instances until the cycle wrote
+     * its results back; a cycle that dies releases them after stale-after-ms.
+     *
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE OperationEntity o SET o.updatedAt = :now WHERE o.id IN :ids")
+    int claimForPollByIds(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Set final status for a batch of operations in a single statement
+     * Only rows still in the expected status are changed, so a concurrent UPDATE callback is never overwritten
+     *
+     * @return number of updated rows
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OperationEntity o SET " +
+           "o.status = :status, " +
+           "o.isFinal = true, " +
+           "o.lastStatusUpdateAt = :now, " +
+           "o.updatedAt = :now, " +
+           "o.updatedBy = :updatedBy " +
+           "WHERE o.id IN :ids AND o.status = :expectedStatus")
+    int updateFinalStatusByIds(@Param("ids") List<Long> ids,
+                               @Param("status") Status status,
+                               @Param("expectedStatus") Status expectedStatus,
+                               @Param("now") LocalDateTime now,
+                               @Param("updatedBy") String updatedBy);
+
+    /**
+     * Mark a batch of operations as polled without status change
+     * Moves them to the end of the poll order and increments retry counter
+     *
+     * @return number of updated rows
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OperationEntity o SET " +
+           "o.updatedAt = :now, " +
+           "o.retryCount = o.retryCount + 1 " +
+           "WHERE o.id IN :ids AND o.status = :expectedStatus")
+    int touchPolledByIds(@Param("ids") List<Long> ids,
+                         @Param("expectedStatus") Status expectedStatus,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Flag operations that used up their poll attempts for manual handling
+     * They are no longer polled; the reason is kept in the error message
+     *
+     * @return number of flagged rows
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OperationEntity o SET " +
+           "o.errorMessage = :reason, " +
+           "o.updatedBy = :updatedBy " +
+           "WHERE o.id IN :ids AND o.status = :expectedStatus AND o.retryCount >= o.maxRetries")
+    int flagPollsExhaustedByIds(@Param("ids") List<Long> ids,
+                                @Param("expectedStatus") Status expectedStatus,
+                                @Param("reason") String reason,
+                                @Param("updatedBy") String updatedBy);
+
+    /**
+     * Apply a progress snapshot to an operation in a single statement without loading it
+     * Null transaction/receipt/executed/error values keep the current column value
+     * Only an operation still in one of the open statuses is updated, so a late snapshot
+     * never overwrites a final status already written by the poller or a webhook
+     * Used by the write-behind writer of the outgoing payment pipeline
+     *
+     * @return number of updated rows, 0 if the operation is missing or already final
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OperationEntity o SET " +
+           "o.status = :status, " +
+           "o.amount = :amount, " +
+           "o.transactionId = COALESCE(:transactionId, o.transactionId), " +
+           "o.receiptId = COALESCE(:receiptId, o.receiptId), " +
+           "o.executedAt = COALESCE(:executedAt, o.executedAt), " +
+           "o.errorMessage = COALESCE(:errorMessage, o.errorMessage), " +
+           "o.isFinal = :isFinal, " +
+           "o.lastStatusUpdateAt = :now, " +
+           "o.updatedAt = :now " +
+           "WHERE o.id = :id AND o.isFinal = :expectedFinal AND o.status IN :openStatuses")
+    int updateProgressById(@Param("id") Long id,
+                           @Param("expectedFinal") Boolean expectedFinal,
+                           @Param("openStatuses") Collection<Status> openStatuses,
+                           @Param("status") Status status,
+                           @Param("amount") Long amount,
+                           @Param("transactionId") String transactionId,
+                           @Param("receiptId") String receiptId,
+                           @Param("executedAt") LocalDateTime executedAt,
+                           @Param("errorMessage") String errorMessage,
+                           @Param("isFinal") Boolean isFinal,
+                           @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,101 @@
+package kg.demirbank.psp.repository;
+
+import jakarta.persistence.QueryHint;
+import kg.demirbank.psp.entity.OutboxEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Repository for transactional outbox events
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    /**
+     * Lock pending events oldest first, skipping rows locked by other publisher instances
+     * Events that used up their attempts are dead, events claimed by a running batch are leased;
+     * neither is picked up. There is no row limit in the query: Oracle rejects one next to FOR UPDATE,
+     * and a limit applied before SKIP LOCKED would hand every instance the same, already locked rows.
+     * SKIP LOCKED rows are locked as they are fetched, so the caller takes the first batch-size rows
+     * of the stream. Must run inside a transaction and be closed before it commits.
+     *
+     * @param maxAttempts attempts after which an event is dead
+     * @param now current time, leases ending before it are free again
+     * @return locked pending events in id order
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "50"))
+    @Query(value = "SELECT * FROM outbox_events " +
+                   "WHERE published_at IS NULL AND attempts < :maxAttempts " +
+                   "AND (claimed_until IS NULL OR claimed_until < :now) " +
+                   "ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Stream<OutboxEventEntity> lockPending(@Param("maxAttempts") int maxAttempts, @Param("now") LocalDateTime now);
+
+    /**
+     * Lease locked events to one batch until the given time, in one statement
+     * The batch publishes outside the transaction; other instances skip leased rows meanwhile.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.claimedUntil = :until WHERE e.id IN :ids")
+    int claim(@Param("ids") List<Long> ids, @Param("until") LocalDateTime until);
+
+    /**
+     * Mark events as published in one statement
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.publishedAt = :now WHERE e.id IN :ids")
+    int markPublished(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Record a publish attempt that failed because of the event itself, in one statement
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.attempts = e.attempts + 1, e.lastError = :error, " +
+           "e.claimedUntil = null WHERE e.id IN :ids")
+    int markFailed(@Param("ids") List<Long> ids, @Param("error") String error);
+
+    /**
+     * Record a broker failure without counting an attempt, events stay pending
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.lastError = :error, e.claimedUntil = null WHERE e.id IN :ids")
+    int recordError(@Param("ids") List<Long> ids, @Param("error") String error);
+
+    /**
+     * Mark events that used up their attempts as dead in one statement
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.deadAt = :now WHERE e.id IN :ids")
+    int markDead(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Count events still waiting to be published
+     */
+    long countByPublishedAtIsNullAndDeadAtIsNull();
+
+    /**
+     * Count dead events
+     */
+    long countByDeadAtIsNotNull();
+
+    /**
+     * Delete events published before the given time
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEventEntity e WHERE e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Delete events that went dead before the given time
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEventEntity e WHERE e.deadAt < :before")
+    int deleteDeadBefore(@Param("before") LocalDateTime before);
+}
@@ -1,15 +1,19 @@
 package kg.demirbank.psp.security;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import kg.demirbank.psp.exception.security.SignatureVerificationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
 
 import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for RSA signature generation and verification
@@ -19,7 +23,26 @@ import java.util.Base64;
 @Slf4j
 public class SignatureService {
 
+    /**
+     * Exchange attribute set once the H-HASH signature of an inbound request has been verified,
+     * so the request is not verified again further down the chain
+     */
+    public static final String VERIFIED_ATTRIBUTE = SignatureService.class.getName() + ".verified";
+
     private final KeyManagementService keyManagementService;
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * RSA operations currently running, used as crypto saturation signal by admission control
+     */
+    private final AtomicInteger inFlightOperations = new AtomicInteger();
+
+    /**
+     * Number of RSA sign/verify operations currently running
+     */
+    public int getInFlightOperations() {
+        return inFlightOperations.get();
+    }
 
     /**
      * Generate signature for outgoing request body or URI
@@ -86,6 +109,20 @@ public class SignatureService {
      * Sign data with RSA private key using SHA-256
      */
     private String signData(byte[] data, PrivateKey privateKey) throws Exception {
+        inFlightOperations.incrementAndGet();
+        Observation observation = cryptoObservation("sign").start();
+        try (Observation.Scope ignored = observation.openScope()) {
+            return doSignData(data, privateKey);
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+            inFlightOperations.decrementAndGet();
+        }
+    }
+
+    private String doSignData(byte[] data, PrivateKey privateKey) throws Exception {
         // Calculate SHA-256 hash of raw body bytes
         MessageDigest digest = MessageDigest.getInstance("SHA-256");
         byte[] hash = digest.digest(data);
@@ -104,6 +141,29 @@ public class SignatureService {
      * Verify data signature with RSA public key using SHA-256
      */
     private boolean verifyData(byte[] data, String signature, PublicKey publicKey) throws Exception {
+        inFlightOperations.incrementAndGet();
+        Observation observation = cryptoObservation("verify").start();
+        try (Observation.Scope ignored = observation.openScope()) {
+            return doVerifyData(data, signature, publicKey);
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+            inFlightOperations.decrementAndGet();
+        }
+    }
+
+    /**
+     * RSA operation as timer psp.crypto and a tracing span
+     */
+    private Observation cryptoObservation(String operation) {
+        return Observation.createNotStarted("psp.crypto", observationRegistry)
+                .contextualName("rsa " + operation)
+                .lowCardinalityKeyValue("operation", operation);
+    }
+
+    private boolean doVerifyData(byte[] data, String signature, PublicKey publicKey) throws Exception {
         // Calculate SHA-256 hash of raw body bytes
         MessageDigest digest = MessageDigest.getInstance("SHA-256");
         byte[] hash = digest.digest(data);
@@ -166,6 +226,22 @@ public class SignatureService {
         }
     }
 
+    /**
+     * Verify the inbound request signature once per exchange
+     * Returns success without another RSA operation if an earlier filter already verified it.
+     */
+    public SignatureVerificationResult verifySignatureWithDetails(ServerWebExchange exchange, byte[] bodyBytes,
+                                                                  String signature, String uri) {
+        if (Boolean.TRUE.equals(exchange.getAttribute(VERIFIED_ATTRIBUTE))) {
+            return SignatureVerificationResult.success();
+        }
+        SignatureVerificationResult result = verifySignatureWithDetails(bodyBytes, signature, uri);
+        if (result.isSuccess()) {
+            exchange.getAttributes().put(VERIFIED_ATTRIBUTE, Boolean.TRUE);
+        }
+        return result;
+    }
+
     /**
      * Result of signature verification
      */
@@ -4,13 +4,14 @@ import kg.demirbank.psp.entity.OperationEntity;
 
 /**
  * Service for managing webhook notifications to merchants
- * Handles webhook event creation and publishing to RabbitMQ
+ * Handles webhook event creation; events go through the transactional outbox to RabbitMQ
  */
 public interface WebhookService {
     
     /**
      * Send webhook notification asynchronously to registered merchant
-     * Checks if merchant exists with matching serviceName and sends webhook for eligible statuses
+     * Checks if merchant exists with matching serviceName and records an outbox event for eligible statuses.
+     * Call it in the transaction that saves the operation, so the event is committed atomically with it.
      * 
      * @param operation operation entity containing transaction details
      */
@@ -26,6 +26,11 @@ public interface OperatorClient {
      */
     Mono<OutgoingTransactionResponseDto> execute(String transactionId);
 
+    /**
+     * Get current transaction status (fallback when no UPDATE callback arrived)
+     */
+    Mono<OutgoingTransactionResponseDto> get(String transactionId);
+
     /**
      * Update transaction status
      */
@@ -56,7 +56,7 @@ public class BankClientImpl implements BankClient {
             
             // Mock bank transaction creation
             BankTransactionResponseDto response = new BankTransactionResponseDto();
-            response.setTransactionId(UUID.randomUUID().toString()); // Generate bank transaction ID
+            response.setTransactionId(UUID.randomUUID().toString().replace("-", "").substring(0, 20)); // Also stored as receipt ID (20 chars)
             response.setStatus(Status.CREATED); // Default status
             response.setCreatedDate(LocalDateTime.now().format(ISO_DATE_TIME) + "Z");
             
@@ -0,0 +1,291 @@
+package kg.demirbank.psp.service.clients.impl;
+
+import kg.demirbank.psp.dto.common.ELQRData;
+import kg.demirbank.psp.dto.common.ElqrPayload;
+import kg.demirbank.psp.exception.validation.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-pass decoder for ELQR payloads (EMV-style TLV)
+ * Each data object is a 2-digit ID, a 2-digit length and a value of that many characters.
+ * Tags 32 and 33 are templates with nested data objects and are decoded in place.
+ * Values are materialized only for the fields kept in ELQRData; skipped tags cost an index jump.
+ * Field 63 must be last: it carries the last 4 hex characters of the SHA-256 of the payload
+ * preceding its own "6304" ID and length, and is checked case-insensitively.
+ */
+public final class ElqrTlvParser {
+
+    public static final String STATIC_QR = "staticQr";
+    public static final String DYNAMIC_QR = "dynamicQr";
+
+    private static final int HEADER_LENGTH = 4;
+    private static final int CHECKSUM_LENGTH = 4;
+    private static final int INTERN_LIMIT = 1024;
+
+    /**
+     * Interned low-cardinality values (merchant providers, currencies)
+     */
+    private static final ConcurrentHashMap<String, String> INTERNED = new ConcurrentHashMap<>();
+
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+
+    private ElqrTlvParser() {
+    }
+
+    /**
+     * Decode ELQR payload
+     *
+     * @param data QR payload (URI fragment)
+     * @return immutable ELQR data
+     * @throws BadRequestException if the payload is malformed or the checksum does not match
+     */
+    public static ELQRData parse(String data) {
+        if (data == null || data.isEmpty()) {
+            throw new BadRequestException("QR payload is empty");
+        }
+
+        ElqrPayload.ElqrPayloadBuilder builder = ElqrPayload.builder();
+        int length = data.length();
+        int pos = 0;
+        boolean formatSeen = false;
+        boolean merchantCodeSeen = false;
+        String checksum = null;
+        int checksumStart = -1;
+
+        while (pos < length) {
+            int tag = readTwoDigits(data, pos);
+            if (tag < 0) {
+                throw malformedHeader(data, pos, "field ID");
+            }
+            int valueLength = readTwoDigits(data, pos + 2);
+            if (valueLength < 0) {
+                throw malformedHeader(data, pos + 2, "length of field " + formatTag(tag));
+            }
+            int valueStart = pos + HEADER_LENGTH;
+            int valueEnd = valueStart + valueLength;
+            if (valueEnd > length) {
+                throw new BadRequestException("QR field " + formatTag(tag) + " at position " + pos
+                        + " declares length " + valueLength + " beyond end of payload");
+            }
+            if (checksum != null) {
+                throw new BadRequestException("QR field 63 (checksum) must be the last field");
+            }
+
+            if (!formatSeen && tag != 0) {
+                throw new BadRequestException("QR payload must start with field 00 (payload format indicator)");
+            }
+
+            switch (tag) {
+                case 0 -> {
+                    if (formatSeen || valueLength != 2 || data.charAt(valueStart) != '0'
+                            || data.charAt(valueStart + 1) != '1') {
+                        throw new BadRequestException("QR field 00 (payload format indicator) must be \"01\"");
+                    }
+                    formatSeen = true;
+                }
+                case 1 -> builder.qrType(parseQrType(data, valueStart, valueLength));
+                case 32 -> parseMerchantAccount(data, valueStart, valueEnd, builder);
+                case 33 -> parseServiceTemplate(data, valueStart, valueEnd, builder);
+                case 34 -> builder.qrComment(data.substring(valueStart, valueEnd));
+                case 52 -> {
+                    if (valueLength != 4) {
+                        throw new BadRequestException("QR field 52 (merchant code) must have 4 digits");
+                    }
+                    builder.merchantCode(parseNumber(data, valueStart, valueEnd, "52 (merchant code)"));
+                    merchantCodeSeen = true;
+                }
+                case 53 -> {
+                    if (valueLength != 3) {
+                        throw new BadRequestException("QR field 53 (currency) must have 3 digits");
+                    }
+                    parseNumber(data, valueStart, valueEnd, "53 (currency)");
+                    builder.currencyCode(intern(data, valueStart, valueEnd));
+                }
+                case 59 -> builder.merchantId(data.substring(valueStart, valueEnd));
+                case 63 -> {
+                    if (valueLength != CHECKSUM_LENGTH) {
+                        throw new BadRequestException("QR field 63 (checksum) must have 4 characters");
+                    }
+                    checksum = data.substring(valueStart, valueEnd).toUpperCase(Locale.ROOT);
+                    checksumStart = pos;
+                }
+                default -> {
+                    // Not mapped to ELQRData, skipped without materializing the value
+                }
+            }
+            pos = valueEnd;
+        }
+
+        if (checksum == null) {
+            throw new BadRequestException("QR field 63 (checksum) is missing");
+        }
+        verifyChecksum(data, checksumStart, checksum);
+
+        ElqrPayload payload = builder.qrLinkHash(checksum).build();
+        if (payload.getQrType() == null) {
+            throw new BadRequestException("QR field 01 (QR type) is missing");
+        }
+        if (payload.getMerchantProvider() == null) {
+            throw new BadRequestException("QR field 32.00 (merchant provider) is missing");
+        }
+        if (!merchantCodeSeen) {
+            throw new BadRequestException("QR field 52 (merchant code) is missing");
+        }
+        if (payload.getCurrencyCode() == null) {
+            throw new BadRequestException("QR field 53 (currency) is missing");
+        }
+        return payload;
+    }
+
+    /**
+     * Field 01: "11" static, "12" dynamic
+     */
+    private static String parseQrType(String data, int start, int length) {
+        if (length == 2 && data.charAt(start) == '1') {
+            char kind = data.charAt(start + 1);
+            if (kind == '1') return STATIC_QR;
+            if (kind == '2') return DYNAMIC_QR;
+        }
+        throw new BadRequestException("QR field 01 (QR type) must be \"11\" or \"12\"");
+    }
+
+    /**
+     * Template 32: 00 merchant provider, 01 service ID, 10 account number, 11 QR transaction ID
+     */
+    private static void parseMerchantAccount(String data, int start, int end, ElqrPayload.ElqrPayloadBuilder builder) {
+        int pos = start;
+        while (pos < end) {
+            int subTag = readTwoDigits(data, pos);
+            if (subTag < 0) {
+                throw malformedHeader(data, pos, "sub-ID of field 32");
+            }
+            int subEnd = subValueEnd(data, pos, end, 32, subTag);
+            int subStart = pos + HEADER_LENGTH;
+            switch (subTag) {
+                case 0 -> builder.merchantProvider(intern(data, subStart, subEnd));
+                case 1 -> builder.serviceId(data.substring(subStart, subEnd));
+                case 10 -> builder.beneficiaryAccountNumber(data.substring(subStart, subEnd));
+                case 11 -> builder.qrTransactionId(data.substring(subStart, subEnd));
+                default -> {
+                    // Other sub-IDs are not mapped to ELQRData
+                }
+            }
+            pos = subEnd;
+        }
+    }
+
+    /**
+     * Template 33: 01 service name
+     */
+    private static void parseServiceTemplate(String data, int start, int end, ElqrPayload.ElqrPayloadBuilder builder) {
+        int pos = start;
+        while (pos < end) {
+            int subTag = readTwoDigits(data, pos);
+            if (subTag < 0) {
+                throw malformedHeader(data, pos, "sub-ID of field 33");
+            }
+            int subEnd = subValueEnd(data, pos, end, 33, subTag);
+            if (subTag == 1) {
+                builder.serviceName(data.substring(pos + HEADER_LENGTH, subEnd));
+            }
+            pos = subEnd;
+        }
+    }
+
+    private static int subValueEnd(String data, int pos, int templateEnd, int tag, int subTag) {
+        if (pos + HEADER_LENGTH > templateEnd) {
+            throw new BadRequestException("QR field " + tag + "." + formatTag(subTag) + " header is truncated");
+        }
+        int subLength = readTwoDigits(data, pos + 2);
+        if (subLength < 0) {
+            throw malformedHeader(data, pos + 2, "length of field " + tag + "." + formatTag(subTag));
+        }
+        int subEnd = pos + HEADER_LENGTH + subLength;
+        if (subEnd > templateEnd) {
+            throw new BadRequestException("QR field " + tag + "." + formatTag(subTag) + " declares length "
+                    + subLength + " beyond end of field " + tag);
+        }
+        return subEnd;
+    }
+
+    /**
+     * Compare last 2 bytes of SHA-256 over payload preceding field 63 with the checksum
+     */
+    private static void verifyChecksum(String data, int checksumStart, String checksum) {
+        byte[] digest;
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            digest = sha256.digest(data.substring(0, checksumStart).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        int b1 = digest[digest.length - 2] & 0xFF;
+        int b2 = digest[digest.length - 1] & 0xFF;
+        if (checksum.charAt(0) != HEX_UPPER[b1 >>> 4] || checksum.charAt(1) != HEX_UPPER[b1 & 0x0F]
+                || checksum.charAt(2) != HEX_UPPER[b2 >>> 4] || checksum.charAt(3) != HEX_UPPER[b2 & 0x0F]) {
+            throw new BadRequestException("QR checksum mismatch in field 63");
+        }
+    }
+
+    /**
+     * Read 2-digit ID or length, -1 if truncated or not numeric
+     */
+    private static int readTwoDigits(String data, int pos) {
+        if (pos + 2 > data.length()) {
+            return -1;
+        }
+        int high = data.charAt(pos) - '0';
+        int low = data.charAt(pos + 1) - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
+    }
+
+    private static BadRequestException malformedHeader(String data, int pos, String what) {
+        if (pos + 2 > data.length()) {
+            return new BadRequestException("QR payload is truncated at position " + pos + " while reading " + what);
+        }
+        return new BadRequestException("QR payload has non-numeric " + what + " at position " + pos);
+    }
+
+    private static int parseNumber(String data, int start, int end, String field) {
+        if (start == end) {
+            throw new BadRequestException("QR field " + field + " is empty");
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new BadRequestException("QR field " + field + " must be numeric");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Return canonical instance for a low-cardinality value
+     */
+    private static String intern(String data, int start, int end) {
+        String value = data.substring(start, end);
+        String existing = INTERNED.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (INTERNED.size() >= INTERN_LIMIT) {
+            return value;
+        }
+        existing = INTERNED.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private static String formatTag(int tag) {
+        return tag < 10 ? "0" + tag : Integer.toString(tag);
+    }
+}
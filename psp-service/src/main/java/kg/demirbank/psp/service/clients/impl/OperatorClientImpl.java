@@ -1,5 +1,7 @@
 package kg.demirbank.psp.service.clients.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import kg.demirbank.psp.dto.outgoing.request.OutgoingCheckRequestDto;
 import kg.demirbank.psp.dto.outgoing.request.OutgoingCreateRequestDto;
 import kg.demirbank.psp.dto.common.UpdateDto;
@@ -27,7 +29,23 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class OperatorClientImpl implements OperatorClient {
 
+    /**
+     * Operator call timer, tagged by operation and the mapped error class ("none" on success)
+     */
+    static final String REQUEST_TIMER = "operator.client.requests";
+
+    /**
+     * Operator endpoints as URI templates; the template, not the expanded URL, is the uri tag
+     * of http.client.requests
+     */
+    private static final String CHECK_PATH = "/psp/api/v1/payment/qr/{version}/tx/check";
+    private static final String CREATE_PATH = "/psp/api/v1/payment/qr/{version}/tx/create";
+    private static final String EXECUTE_PATH = "/psp/api/v1/payment/qr/{version}/tx/execute/{transactionId}";
+    private static final String GET_PATH = "/psp/api/v1/payment/qr/{version}/tx/get/{transactionId}";
+    private static final String UPDATE_PATH = "/psp/api/v1/payment/qr/{version}/tx/update/{transactionId}";
+
     private final WebClient.Builder webClientBuilder;
+    private final MeterRegistry meterRegistry;
 
     @Value("${operator.base-url}")
     private String operatorBaseUrl;
@@ -54,30 +72,34 @@ public class OperatorClientImpl implements OperatorClient {
         // Note: hash is not included as it's typically calculated per request
     }
 
+    private WebClient.RequestHeadersSpec<?> addHeaders(WebClient.RequestHeadersSpec<?> spec) {
+        return spec
+                .accept(MediaType.APPLICATION_JSON)
+                .header("H-PSP-TOKEN", pspToken)
+                .header("H-PSP-ID", pspId)
+                .header("H-SIGNING-VERSION", signingVersion);
+    }
+
     @Override
     public Mono<OutgoingCheckResponseDto> check(OutgoingCheckRequestDto request) {
-        String url = String.format("%s/psp/api/v1/payment/qr/%s/tx/check", operatorBaseUrl, version);
-        
         WebClient webClient = webClientBuilder.baseUrl(operatorBaseUrl).build();
         
-        return addHeaders(webClient.post().uri(url))
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(OutgoingCheckResponseDto.class)
-                .onErrorMap(this::mapOperatorError);
+        return timed("check", addHeaders(webClient.post().uri(CHECK_PATH, version))
+                        .bodyValue(request)
+                        .retrieve()
+                        .bodyToMono(OutgoingCheckResponseDto.class)
+                        .onErrorMap(this::mapOperatorError));
     }
 
     @Override
     public Mono<OutgoingTransactionResponseDto> create(OutgoingCreateRequestDto request) {
-        String url = String.format("%s/psp/api/v1/payment/qr/%s/tx/create", operatorBaseUrl, version);
-        
         WebClient webClient = webClientBuilder.baseUrl(operatorBaseUrl).build();
         
-        return addHeaders(webClient.post().uri(url))
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(OutgoingTransactionResponseDto.class)
-                .onErrorMap(this::mapOperatorError);
+        return timed("create", addHeaders(webClient.post().uri(CREATE_PATH, version))
+                        .bodyValue(request)
+                        .retrieve()
+                        .bodyToMono(OutgoingTransactionResponseDto.class)
+                        .onErrorMap(this::mapOperatorError));
     }
 
     @Override
@@ -86,14 +108,26 @@ public class OperatorClientImpl implements OperatorClient {
             return Mono.error(new BadRequestException("Transaction ID not specified"));
         }
 
-        String url = String.format("%s/psp/api/v1/payment/qr/%s/tx/execute/%s", operatorBaseUrl, version, transactionId);
+        WebClient webClient = webClientBuilder.baseUrl(operatorBaseUrl).build();
         
+        return timed("execute", addHeaders(webClient.post().uri(EXECUTE_PATH, version, transactionId))
+                        .retrieve()
+                        .bodyToMono(OutgoingTransactionResponseDto.class)
+                        .onErrorMap(this::mapOperatorError));
+    }
+
+    @Override
+    public Mono<OutgoingTransactionResponseDto> get(String transactionId) {
+        if (transactionId == null || transactionId.isBlank()) {
+            return Mono.error(new BadRequestException("Transaction ID not specified"));
+        }
+
         WebClient webClient = webClientBuilder.baseUrl(operatorBaseUrl).build();
         
-        return addHeaders(webClient.post().uri(url))
-                .retrieve()
-                .bodyToMono(OutgoingTransactionResponseDto.class)
-                .onErrorMap(this::mapOperatorError);
+        return timed("get", addHeaders(webClient.get().uri(GET_PATH, version, transactionId))
+                        .retrieve()
+                        .bodyToMono(OutgoingTransactionResponseDto.class)
+                        .onErrorMap(this::mapOperatorError));
     }
 
     @Override
@@ -102,21 +136,40 @@ public class OperatorClientImpl implements OperatorClient {
             return Mono.error(new BadRequestException("Transaction ID not specified"));
         }
 
-        String url = String.format("%s/psp/api/v1/payment/qr/%s/tx/update/%s", operatorBaseUrl, version, transactionId);
-        
         WebClient webClient = webClientBuilder.baseUrl(operatorBaseUrl).build();
         
-        return addHeaders(webClient.post().uri(url))
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(Void.class)
-                .onErrorMap(this::mapOperatorError);
+        return timed("update", addHeaders(webClient.post().uri(UPDATE_PATH, version, transactionId))
+                        .bodyValue(request)
+                        .retrieve()
+                        .bodyToMono(Void.class)
+                        .onErrorMap(this::mapOperatorError));
+    }
+
+    /**
+     * Record the call duration once the operator error has been mapped
+     */
+    private <T> Mono<T> timed(String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return call
+                    .doOnSuccess(result -> sample.stop(requestTimer(operation, "none")))
+                    .doOnError(error -> sample.stop(requestTimer(operation, error.getClass().getSimpleName())));
+        });
+    }
+
+    private Timer requestTimer(String operation, String error) {
+        return Timer.builder(REQUEST_TIMER)
+                .description("Duration of operator API calls")
+                .tag("operation", operation)
+                .tag("error", error)
+                .register(meterRegistry);
     }
 
     /**
      * Map operator errors to our custom exceptions
+     * Package-private for the error classification benchmark
      */
-    private Throwable mapOperatorError(Throwable error) {
+    Throwable mapOperatorError(Throwable error) {
         // Handle WebClientResponseException (HTTP errors with response)
         if (error instanceof WebClientResponseException) {
             WebClientResponseException ex = (WebClientResponseException) error;
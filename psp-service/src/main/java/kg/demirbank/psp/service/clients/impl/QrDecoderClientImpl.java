@@ -1,133 +1,190 @@
 package kg.demirbank.psp.service.clients.impl;
 
 import kg.demirbank.psp.dto.common.ELQRData;
-import kg.demirbank.psp.dto.common.KeyValueDto;
 import kg.demirbank.psp.exception.validation.BadRequestException;
+import kg.demirbank.psp.metrics.ReactiveObservations;
 import kg.demirbank.psp.service.clients.QrDecoderClient;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
 
 /**
  * Implementation of QR decoder service
  * Parses EMV QR code format from URI and extracts ELQR data
+ * Decoded static QRs are cached, so repeat scans of the same code skip decoding
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class QrDecoderClientImpl implements QrDecoderClient {
     
+    private final ObservationRegistry observationRegistry;
+    
     @Value("${qr.decoder.base-url:}")
     private String qrDecoderBaseUrl;
     
+    @Value("${qr.decoder.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${qr.decoder.cache.max-weight-bytes:16777216}")
+    private long cacheMaxWeightBytes;
+
+    @Value("${qr.decoder.cache.expire-after-access-ms:3600000}")
+    private long cacheExpireAfterAccessMs;
+
+    /**
+     * Decoded static QRs keyed by 64-bit hash of the fragment
+     */
+    private Cache<Long, CachedQr> staticQrCache;
+
+    @PostConstruct
+    public void initCache() {
+        staticQrCache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxWeightBytes)
+                .weigher((Long key, CachedQr value) -> value.weight())
+                .expireAfterAccess(Duration.ofMillis(cacheExpireAfterAccessMs))
+                .recordStats()
+                .build();
+        log.info("Static QR cache enabled: {}, max weight: {} bytes", cacheEnabled, cacheMaxWeightBytes);
+    }
+
     @Override
     public Mono<ELQRData> decodeQrUri(String qrUri) {
+        return ReactiveObservations.observe(() -> Observation.createNotStarted("psp.qr.decode", observationRegistry)
+                .contextualName("qr decode"), decode(qrUri));
+    }
+
+    private Mono<ELQRData> decode(String qrUri) {
         return Mono.fromCallable(() -> {
             try {
-                // Extract QR data from URI fragment
-                String qrData = extractQrDataFromUri(qrUri);
-                
+                // Locate QR data in URI fragment
+                int fragmentStart = findFragmentStart(qrUri);
+
+                long key = 0;
+                if (cacheEnabled) {
+                    key = hashFragment(qrUri, fragmentStart);
+                    CachedQr cached = staticQrCache.getIfPresent(key);
+                    if (cached != null && cached.matches(qrUri, fragmentStart)) {
+                        return cached.data();
+                    }
+                }
+
                 // Parse EMV QR format
-                return parseEmvQrData(qrData);
+                String qrData = qrUri.substring(fragmentStart);
+                ELQRData data = parseEmvQrData(qrData);
+
+                if (cacheEnabled && isCacheable(data)) {
+                    staticQrCache.put(key, new CachedQr(qrData, data));
+                }
+                return data;
+            } catch (BadRequestException e) {
+                log.warn("Failed to decode QR URI: {} - {}", qrUri, e.getMessage());
+                throw e;
             } catch (Exception e) {
                 log.error("Failed to decode QR URI: {}", qrUri, e);
-                throw new BadRequestException("Invalid QR code format: " + e.getMessage());
+                throw new BadRequestException("Invalid QR code format: " + e.getMessage(), e);
             }
         });
     }
-    
+
+    /**
+     * Hit/miss/eviction statistics of the static QR cache
+     */
+    public CacheStats getCacheStats() {
+        return staticQrCache.stats();
+    }
+
     /**
-     * Extract QR data from URI fragment
+     * Log static QR cache statistics
+     */
+    @Scheduled(fixedDelayString = "${qr.decoder.cache.stats-log-interval-ms:300000}")
+    public void logCacheStats() {
+        CacheStats stats = staticQrCache.stats();
+        if (stats.requestCount() > 0) {
+            log.info("Static QR cache: size={}, hitRate={}, hits={}, misses={}, evictions={}",
+                    staticQrCache.estimatedSize(), String.format("%.3f", stats.hitRate()),
+                    stats.hitCount(), stats.missCount(), stats.evictionCount());
+        }
+    }
+
+    /**
+     * Only static QRs without a transaction ID describe the same payment every time they are scanned
+     */
+    private boolean isCacheable(ELQRData data) {
+        return ElqrTlvParser.STATIC_QR.equals(data.getQrType()) && data.getQrTransactionId() == null;
+    }
+
+    /**
+     * Find start of QR data in URI fragment
      * Handles URLs like: https://retail.demirbank.kg/#00020101021232990015qr.demirbank.kg...
      */
-    private String extractQrDataFromUri(String qrUri) {
+    private int findFragmentStart(String qrUri) {
         if (qrUri == null || qrUri.trim().isEmpty()) {
             throw new BadRequestException("QR URI cannot be empty");
         }
-        
-        // Extract fragment after #
+
+        // Fragment starts after #
         int hashIndex = qrUri.indexOf('#');
         if (hashIndex == -1 || hashIndex == qrUri.length() - 1) {
             throw new BadRequestException("QR URI must contain fragment with QR data");
         }
-        
-        return qrUri.substring(hashIndex + 1);
+
+        return hashIndex + 1;
     }
-    
+
+    /**
+     * 64-bit FNV-1a hash of the fragment, computed in place without copying it
+     */
+    private static long hashFragment(String qrUri, int fragmentStart) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = fragmentStart; i < qrUri.length(); i++) {
+            hash ^= qrUri.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
     /**
      * Parse EMV QR code data and create ELQRData implementation
+     * Example QR: 00020101021232990015qr.demirbank.kg0108SmartPos10161180000012802287120212130212113253116dabd0c54a8b9c5b7037b7c14c9933360008SmartPos0120pvumkrstkemowcealu7o5204531253034175404250059150010000000007696304beb4
      */
     private ELQRData parseEmvQrData(String qrData) {
-        // For now, return mock data based on the provided example
-        // In real implementation, this would parse the actual EMV QR format
-        
-        // Example QR: 00020101021232990015qr.demirbank.kg0108SmartPos10161180000012802287120212130212113253116dabd0c54a8b9c5b7037b7c14c9933360008SmartPos0120pvumkrstkemowcealu7o5204531253034175404250059150010000000007696304beb4
-        
-        return new ELQRData() {
-            @Override
-            public String getQrType() {
-                return "staticQr"; // Default for static QR codes
-            }
-            
-            @Override
-            public String getMerchantProvider() {
-                return "qr.demirbank.kg"; // From example
-            }
-            
-            @Override
-            public String getMerchantId() {
-                return "SmartPos"; // From example
-            }
-            
-            @Override
-            public String getServiceId() {
-                return "180000012802287"; // From example
-            }
-            
-            @Override
-            public String getServiceName() {
-                return "SmartPos"; // From example
-            }
-            
-            @Override
-            public String getBeneficiaryAccountNumber() {
-                return "pvumkrstkemowcealu7o"; // From example
-            }
-            
-            @Override
-            public Integer getMerchantCode() {
-                return 5311; // From example
-            }
-            
-            @Override
-            public String getCurrencyCode() {
-                return "417"; // KGS currency
-            }
-            
-            @Override
-            public String getQrTransactionId() {
-                return null; // Not present in static QR
-            }
-            
-            @Override
-            public String getQrComment() {
-                return null; // Not present in this example
-            }
-            
-            @Override
-            public String getQrLinkHash() {
-                return "beb4"; // Last 4 chars from example
-            }
-            
-            @Override
-            public List<KeyValueDto> getExtra() {
-                return new ArrayList<>(); // No extra data in this example
-            }
-        };
+        return ElqrTlvParser.parse(qrData);
+    }
+
+    /**
+     * Cached decode result; the fragment is kept to reject hash collisions
+     */
+    private record CachedQr(String fragment, ELQRData data) {
+
+        boolean matches(String qrUri, int fragmentStart) {
+            return qrUri.length() - fragmentStart == fragment.length()
+                    && qrUri.regionMatches(fragmentStart, fragment, 0, fragment.length());
+        }
+
+        /**
+         * Approximate retained size in bytes: fragment plus decoded strings plus object overhead
+         */
+        int weight() {
+            return 256 + 2 * (fragment.length()
+                    + length(data.getMerchantProvider()) + length(data.getMerchantId())
+                    + length(data.getServiceId()) + length(data.getServiceName())
+                    + length(data.getBeneficiaryAccountNumber()) + length(data.getQrComment()));
+        }
+
+        private static int length(String value) {
+            return value != null ? value.length() : 0;
+        }
     }
 }
@@ -20,6 +20,7 @@ import kg.demirbank.psp.exception.PspException;
 import kg.demirbank.psp.exception.validation.BadRequestException;
 import kg.demirbank.psp.exception.business.ResourceNotFoundException;
 import kg.demirbank.psp.exception.network.SystemErrorException;
+import kg.demirbank.psp.metrics.FlowMetrics;
 import kg.demirbank.psp.repository.OperationRepository;
 import kg.demirbank.psp.service.clients.BankClient;
 import kg.demirbank.psp.service.BankService;
@@ -27,12 +28,18 @@ import kg.demirbank.psp.service.WebhookService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
+import static kg.demirbank.psp.metrics.FlowMetrics.STAGE_BANK_CHECK;
+import static kg.demirbank.psp.metrics.FlowMetrics.STAGE_BANK_CREATE;
+import static kg.demirbank.psp.metrics.FlowMetrics.STAGE_DB_FIND;
+import static kg.demirbank.psp.metrics.FlowMetrics.STAGE_DB_SAVE;
+
 /**
  * Implementation of bank service
  * Handles full merchant operations using bank client
@@ -42,9 +49,18 @@ import java.util.UUID;
 @Slf4j
 public class BankServiceImpl implements BankService {
     
+    private static final String FLOW_QR_CHECK = "bank.qr-check";
+    private static final String FLOW_PAYMENT = "bank.payment";
+    private static final String FLOW_INCOMING_CHECK = "bank.incoming-check";
+    private static final String FLOW_INCOMING_CREATE = "bank.incoming-create";
+    private static final String FLOW_INCOMING_EXECUTE = "bank.incoming-execute";
+    private static final String FLOW_INCOMING_UPDATE = "bank.incoming-update";
+    
     private final BankClient bankClient;
     private final OperationRepository operationRepository;
     private final WebhookService webhookService;
+    private final TransactionTemplate transactionTemplate;
+    private final FlowMetrics flowMetrics;
     
     @Override
     public Mono<MerchantCheckResponseDto> checkQrPayment(MerchantCheckRequestDto request, ELQRData elqrData) {
@@ -59,7 +75,7 @@ public class BankServiceImpl implements BankService {
         bankCheckRequest.setMerchantCode(elqrData.getMerchantCode());
         bankCheckRequest.setAmount(0L); // For CHECK operation amount = 0
         
-        return bankClient.checkAccount(bankCheckRequest)
+        return flowMetrics.time(FLOW_QR_CHECK, STAGE_BANK_CHECK, bankClient.checkAccount(bankCheckRequest))
                 .flatMap(bankCheckResponse -> {
                     // Validate account exists
                     if (!Boolean.TRUE.equals(bankCheckResponse.getAccountValid())) {
@@ -73,7 +89,7 @@ public class BankServiceImpl implements BankService {
                             elqrData
                     );
                     
-                    return Mono.fromCallable(() -> operationRepository.save(operation))
+                    return flowMetrics.time(FLOW_QR_CHECK, STAGE_DB_SAVE, Mono.fromCallable(() -> operationRepository.save(operation)))
                             .map(savedOperation -> {
                                 log.debug("Operation saved with ID: {}", savedOperation.getId());
                                 
@@ -112,7 +128,8 @@ public class BankServiceImpl implements BankService {
         log.info("Starting bank payment for session: {} with amount: {}", 
                 request.getPaymentSessionId(), request.getAmount());
         
-        return Mono.fromCallable(() -> operationRepository.findByPaymentSessionId(request.getPaymentSessionId()))
+        return flowMetrics.time(FLOW_PAYMENT, STAGE_DB_FIND,
+                        Mono.fromCallable(() -> operationRepository.findByPaymentSessionId(request.getPaymentSessionId())))
                 .flatMap(optional -> optional.map(Mono::just).orElse(Mono.error(new ResourceNotFoundException("Session not found"))))
                 .flatMap(operation -> {
                     log.debug("Found operation: {}", operation.getId());
@@ -128,7 +145,7 @@ public class BankServiceImpl implements BankService {
                     operation.setAmount(request.getAmount());
                     operation.setUpdatedAt(LocalDateTime.now());
                     
-                    return Mono.fromCallable(() -> operationRepository.save(operation))
+                    return flowMetrics.time(FLOW_PAYMENT, STAGE_DB_SAVE, Mono.fromCallable(() -> operationRepository.save(operation)))
                             .flatMap(updatedOperation -> {
                                 log.debug("Operation updated, proceeding with bank payment");
                                 
@@ -139,7 +156,7 @@ public class BankServiceImpl implements BankService {
                                 bankCheckRequest.setMerchantCode(operation.getMerchantCode());
                                 bankCheckRequest.setAmount(request.getAmount());
                                 
-                                return bankClient.checkAccount(bankCheckRequest)
+                                return flowMetrics.time(FLOW_PAYMENT, STAGE_BANK_CHECK, bankClient.checkAccount(bankCheckRequest))
                                         .flatMap(bankCheckResponse -> {
                                             log.debug("Bank check completed: {}", bankCheckResponse.getAccountValid());
                                             
@@ -163,7 +180,7 @@ public class BankServiceImpl implements BankService {
                                             bankCreateRequest.setQrComment(operation.getQrComment());
                                             bankCreateRequest.setQrLinkHash(operation.getQrLinkHash());
                                             
-                                            return bankClient.createTransaction(bankCreateRequest)
+                                            return flowMetrics.time(FLOW_PAYMENT, STAGE_BANK_CREATE, bankClient.createTransaction(bankCreateRequest))
                                                     .flatMap(bankTransactionResponse -> {
                                                         log.debug("Bank transaction created: {}", bankTransactionResponse.getTransactionId());
                                                         
@@ -173,7 +190,8 @@ public class BankServiceImpl implements BankService {
                                                         updatedOperation.setReceiptId(bankTransactionResponse.getTransactionId());
                                                         updatedOperation.setUpdatedAt(LocalDateTime.now());
                                                         
-                                                        return Mono.fromCallable(() -> operationRepository.save(updatedOperation))
+                                                        return flowMetrics.time(FLOW_PAYMENT, STAGE_DB_SAVE,
+                                                                        Mono.fromCallable(() -> operationRepository.save(updatedOperation)))
                                                                 .map(finalOperation -> {
                                                                     log.info("Bank payment completed successfully for session: {}", request.getPaymentSessionId());
                                                                     
@@ -213,7 +231,7 @@ public class BankServiceImpl implements BankService {
         bankCheckRequest.setMerchantCode(request.getMerchantCode());
         bankCheckRequest.setAmount(request.getAmount());
         
-        return bankClient.checkAccount(bankCheckRequest)
+        return flowMetrics.time(FLOW_INCOMING_CHECK, STAGE_BANK_CHECK, bankClient.checkAccount(bankCheckRequest))
                 .map(bankCheckResponse -> {
                     // Create incoming check response
                     IncomingCheckResponseDto response = new IncomingCheckResponseDto();
@@ -247,17 +265,8 @@ public class BankServiceImpl implements BankService {
             operation.setAmount(request.getAmount());
             operation.setStatus(Status.CREATED);
             
-            OperationEntity savedOperation = operationRepository.save(operation);
-            
-            // Send webhook for PENDING status (CREATED) after successful save
-            try {
-                webhookService.sendWebhookAsync(savedOperation);
-            } catch (Exception e) {
-                log.error("Failed to send webhook for CREATED status", e);
-                // Don't throw - webhook failure shouldn't affect transaction
-            }
-            
-            return savedOperation;
+            // Save with webhook for PENDING status (CREATED)
+            return saveWithWebhook(FLOW_INCOMING_CREATE, operation);
         })
         .flatMap(savedOperation -> {
             log.debug("Incoming operation saved with ID: {}", savedOperation.getId());
@@ -269,20 +278,14 @@ public class BankServiceImpl implements BankService {
             bankCheckRequest.setMerchantCode(request.getMerchantCode());
             bankCheckRequest.setAmount(request.getAmount());
             
-                        return bankClient.checkAccount(bankCheckRequest)
+                        return flowMetrics.time(FLOW_INCOMING_CREATE, STAGE_BANK_CHECK, bankClient.checkAccount(bankCheckRequest))
                                 .flatMap(bankCheckResponse -> {
                                     if (!Boolean.TRUE.equals(bankCheckResponse.getAccountValid())) {
                                         // Update operation status to ERROR
                                         savedOperation.setStatus(Status.ERROR);
                                         savedOperation.setUpdatedAt(LocalDateTime.now());
-                                        OperationEntity errorOperation = operationRepository.save(savedOperation);
-                                        
-                                        // Send webhook for ERROR status
-                                        try {
-                                            webhookService.sendWebhookAsync(errorOperation);
-                                        } catch (Exception e) {
-                                            log.error("Failed to send webhook for ERROR status", e);
-                                        }
+                                        // Save with webhook for ERROR status
+                                        saveWithWebhook(FLOW_INCOMING_CREATE, savedOperation);
                                         
                                         return Mono.error(new BadRequestException("Account check failed"));
                                     }
@@ -303,7 +306,7 @@ public class BankServiceImpl implements BankService {
                         bankCreateRequest.setQrComment(request.getQrComment());
                         bankCreateRequest.setQrLinkHash(request.getQrLinkHash());
                         
-                        return bankClient.createTransaction(bankCreateRequest)
+                        return flowMetrics.time(FLOW_INCOMING_CREATE, STAGE_BANK_CREATE, bankClient.createTransaction(bankCreateRequest))
                                 .map(bankTransactionResponse -> {
                                     // Update operation with transaction details
                                     savedOperation.setStatus(Status.SUCCESS);
@@ -311,15 +314,8 @@ public class BankServiceImpl implements BankService {
                                     savedOperation.setReceiptId(bankTransactionResponse.getTransactionId());
                                     savedOperation.setUpdatedAt(LocalDateTime.now());
                                     
-                                    OperationEntity finalOperation = operationRepository.save(savedOperation);
-                                    
-                                    // Send webhook for final SUCCESS status
-                                    try {
-                                        webhookService.sendWebhookAsync(finalOperation);
-                                    } catch (Exception e) {
-                                        log.error("Failed to send webhook for SUCCESS status", e);
-                                        // Don't throw - webhook failure shouldn't affect transaction
-                                    }
+                                    // Save with webhook for final SUCCESS status
+                                    saveWithWebhook(FLOW_INCOMING_CREATE, savedOperation);
                                     
                                     // Create incoming transaction response
                                     IncomingTransactionResponseDto response = new IncomingTransactionResponseDto();
@@ -347,8 +343,18 @@ public class BankServiceImpl implements BankService {
             return new SystemErrorException("Failed to process incoming transaction creation request");
         });
     }
-    
-    
+
+    /**
+     * Save operation and record its webhook event in one transaction (transactional outbox)
+     */
+    private OperationEntity saveWithWebhook(String flow, OperationEntity operation) {
+        return flowMetrics.time(flow, STAGE_DB_SAVE, () -> transactionTemplate.execute(status -> {
+            OperationEntity savedOperation = operationRepository.save(operation);
+            webhookService.sendWebhookAsync(savedOperation);
+            return savedOperation;
+        }));
+    }
+
     /**
      * Create operation entity for tracking incoming transactions (create request)
      */
@@ -405,7 +411,8 @@ public class BankServiceImpl implements BankService {
     public Mono<IncomingTransactionResponseDto> executeIncomingTransaction(String transactionId) {
         return Mono.fromCallable(() -> {
             // Find the operation by operator's transaction ID
-            OperationEntity operation = operationRepository.findByTransactionId(transactionId)
+            OperationEntity operation = flowMetrics.time(FLOW_INCOMING_EXECUTE, STAGE_DB_FIND,
+                            () -> operationRepository.findByTransactionId(transactionId))
                     .orElseThrow(() -> new ResourceNotFoundException("Transaction not found: " + transactionId));
             
             // Validate that this is an incoming transaction
@@ -425,7 +432,7 @@ public class BankServiceImpl implements BankService {
             operation.setUpdatedBy("BANK_SERVICE");
             
             // Save the updated operation
-            operationRepository.save(operation);
+            flowMetrics.time(FLOW_INCOMING_EXECUTE, STAGE_DB_SAVE, () -> operationRepository.save(operation));
             
             // Create response
             IncomingTransactionResponseDto response = new IncomingTransactionResponseDto();
@@ -449,7 +456,8 @@ public class BankServiceImpl implements BankService {
         
         return Mono.fromCallable(() -> {
             // Find the operation by transaction ID
-            OperationEntity operation = operationRepository.findByTransactionId(transactionId)
+            OperationEntity operation = flowMetrics.time(FLOW_INCOMING_UPDATE, STAGE_DB_FIND,
+                            () -> operationRepository.findByTransactionId(transactionId))
                     .orElseThrow(() -> new ResourceNotFoundException("Transaction not found: " + transactionId));
             
             // Validate that this is an incoming transaction
@@ -464,7 +472,7 @@ public class BankServiceImpl implements BankService {
             operation.setUpdatedBy("BANK_SERVICE");
             
             // Save the updated operation
-            operationRepository.save(operation);
+            flowMetrics.time(FLOW_INCOMING_UPDATE, STAGE_DB_SAVE, () -> operationRepository.save(operation));
             
             log.info("Incoming transaction updated successfully for transaction: {} with status: {}", 
                     transactionId, updateRequest.getStatus());
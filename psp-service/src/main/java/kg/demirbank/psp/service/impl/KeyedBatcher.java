@@ -0,0 +1,85 @@
+package kg.demirbank.psp.service.impl;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Collects items per key into batches closed by size or by age
+ * A batch is flushed when it reaches maxSize items or maxWaitMs after its first item, whichever
+ * comes first. Every item's Mono completes (or fails) with the flush of its batch.
+ */
+public final class KeyedBatcher<T> {
+
+    private final Map<String, Batch<T>> open = new ConcurrentHashMap<>();
+
+    /**
+     * Add the item to the open batch of the key
+     *
+     * @param flusher delivers one batch; its outcome becomes the outcome of every item in it
+     */
+    public Mono<Void> add(String key, T item, int maxSize, long maxWaitMs, Function<List<T>, Mono<Void>> flusher) {
+        return Mono.defer(() -> {
+            AtomicReference<Batch<T>> target = new AtomicReference<>();
+            boolean[] firstAndFull = new boolean[2];
+            // Decided under the key's lock; a full batch leaves the map in the same step
+            open.compute(key, (k, current) -> {
+                Batch<T> batch = current != null ? current : new Batch<>(flusher);
+                batch.items.add(item);
+                target.set(batch);
+                firstAndFull[0] = batch.items.size() == 1;
+                firstAndFull[1] = batch.items.size() >= maxSize;
+                return firstAndFull[1] ? null : batch;
+            });
+            Batch<T> batch = target.get();
+            if (firstAndFull[1]) {
+                flush(batch);
+            } else if (firstAndFull[0]) {
+                batch.timer = Schedulers.parallel().schedule(() -> {
+                    if (open.remove(key, batch)) {
+                        flush(batch);
+                    }
+                }, maxWaitMs, TimeUnit.MILLISECONDS);
+            }
+            return batch.done.asMono();
+        });
+    }
+
+    /**
+     * Keys with an open batch
+     */
+    public int size() {
+        return open.size();
+    }
+
+    private void flush(Batch<T> batch) {
+        Disposable timer = batch.timer;
+        if (timer != null) {
+            timer.dispose();
+        }
+        // Already removed from the map, no item is added after this point
+        List<T> items = List.copyOf(batch.items);
+        Mono.defer(() -> batch.flusher.apply(items))
+                .subscribe(null, batch.done::tryEmitError, batch.done::tryEmitEmpty);
+    }
+
+    private static final class Batch<T> {
+        private final List<T> items = new ArrayList<>();
+        private final Sinks.Empty<Void> done = Sinks.empty();
+        private final Function<List<T>, Mono<Void>> flusher;
+        private volatile Disposable timer;
+
+        private Batch(Function<List<T>, Mono<Void>> flusher) {
+            this.flusher = flusher;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package kg.demirbank.psp.service.impl;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous tasks with the same key one after another, in call order
+ * Tasks with different keys run concurrently. A key is tracked only while it has a task running
+ * or waiting, so the map stays as small as the number of keys in flight.
+ */
+public final class KeyedSequencer {
+
+    private final Map<String, Mono<Void>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * Run the task after all previously submitted tasks with the same key have finished
+     * A null key runs the task immediately.
+     */
+    public Mono<Void> run(String key, Supplier<Mono<Void>> task) {
+        if (key == null) {
+            return Mono.defer(task);
+        }
+        Sinks.Empty<Void> done = Sinks.empty();
+        Mono<Void> tail = done.asMono();
+        Mono<Void> previous = tails.put(key, tail);
+        Mono<Void> ready = previous != null ? previous.onErrorResume(e -> Mono.empty()) : Mono.empty();
+        return ready.then(Mono.defer(task))
+                .doFinally(signal -> {
+                    tails.remove(key, tail);
+                    done.tryEmitEmpty();
+                });
+    }
+
+    /**
+     * Keys with a task running or waiting
+     */
+    public int size() {
+        return tails.size();
+    }
+}
@@ -0,0 +1,322 @@
+package kg.demirbank.psp.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import kg.demirbank.psp.dto.webhook.WebhookMessageDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-merchant bulkheads and circuit breakers for webhook delivery
+ * Every merchant gets its own lane: at most max-concurrency deliveries in flight and max-queued
+ * waiting for a slot. Deliveries beyond that, and all deliveries while the merchant's circuit is
+ * open, are parked in a retry tier instead of holding consumer prefetch. One slow merchant therefore
+ * occupies a bounded share of the consumer window and the rest is left to the other merchants.
+ * Each lane is exported as webhook.merchant.* meters tagged with the merchant; lanes are never
+ * removed, so the series are bounded by the number of merchants.
+ */
+@Component
+@ManagedResource(objectName = "kg.demirbank.psp:type=MerchantDeliveryGuard")
+@Slf4j
+public class MerchantDeliveryGuard {
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final MeterRegistry meterRegistry;
+
+    public MerchantDeliveryGuard(@Value("${webhook.merchant.max-concurrency:10}") int maxConcurrency,
+                                 @Value("${webhook.merchant.max-queued:50}") int maxQueued,
+                                 @Value("${webhook.merchant.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                 @Value("${webhook.merchant.circuit-breaker.open-duration-ms:30000}") long openDurationMs,
+                                 MeterRegistry meterRegistry) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Lane of the merchant the message belongs to (appId, or target host for messages without one)
+     */
+    public Lane lane(WebhookMessageDto message) {
+        String key = message.getAppId() != null
+                ? message.getAppId().toLowerCase(Locale.ROOT)
+                : hostOf(message.getTargetUrl());
+        return lanes.computeIfAbsent(key, this::newLane);
+    }
+
+    public Collection<Lane> getLanes() {
+        return lanes.values();
+    }
+
+    @ManagedOperation(description = "Per-merchant state, queue depth and delivery latency")
+    public List<String> merchantStats() {
+        List<String> stats = new ArrayList<>();
+        for (Lane lane : lanes.values()) {
+            stats.add(String.format(Locale.ROOT,
+                    "%s circuit=%s inFlight=%d queued=%d delivered=%d failed=%d parked=%d latencyEwmaMs=%.1f",
+                    lane.getMerchant(), lane.getCircuitState(), lane.getInFlight(), lane.getQueued(),
+                    lane.getDelivered(), lane.getFailed(), lane.getParked(), lane.getLatencyEwmaMs()));
+        }
+        return stats;
+    }
+
+    @ManagedOperation(description = "Close the circuit of a merchant")
+    public void closeCircuit(String merchant) {
+        Lane lane = lanes.get(merchant.toLowerCase(Locale.ROOT));
+        if (lane != null) {
+            lane.onSuccess(0);
+        }
+    }
+
+    private Lane newLane(String merchant) {
+        Lane lane = new Lane(merchant);
+        Tags tags = Tags.of("merchant", merchant);
+        Gauge.builder("webhook.merchant.circuit.open", lane, l -> l.getCircuitState() == CircuitState.CLOSED ? 0 : 1)
+                .description("1 while the merchant's circuit is open or half-open")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("webhook.merchant.in.flight", lane, Lane::getInFlight)
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("webhook.merchant.queued", lane, Lane::getQueued)
+                .tags(tags)
+                .register(meterRegistry);
+        FunctionCounter.builder("webhook.merchant.deliveries", lane, Lane::getDelivered)
+                .tags(tags.and("result", "delivered"))
+                .register(meterRegistry);
+        FunctionCounter.builder("webhook.merchant.deliveries", lane, Lane::getFailed)
+                .tags(tags.and("result", "failed"))
+                .register(meterRegistry);
+        FunctionCounter.builder("webhook.merchant.deliveries", lane, Lane::getParked)
+                .tags(tags.and("result", "parked"))
+                .register(meterRegistry);
+        return lane;
+    }
+
+    private static String hostOf(String targetUrl) {
+        try {
+            String host = URI.create(targetUrl).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : targetUrl;
+        } catch (IllegalArgumentException e) {
+            return String.valueOf(targetUrl);
+        }
+    }
+
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Signals that the merchant's lane has no free slot and no queue space
+     */
+    public static final class LaneFullException extends RuntimeException {
+        LaneFullException(String merchant) {
+            super("Delivery lane of " + merchant + " is full", null, false, false);
+        }
+    }
+
+    /**
+     * Bulkhead, circuit breaker and statistics of one merchant
+     * State changes are guarded by the lane monitor; contention is limited to one merchant.
+     */
+    public final class Lane {
+
+        private static final double EWMA_ALPHA = 0.2;
+
+        private final String merchant;
+        private final Deque<MonoSink<Lane>> waiting = new ArrayDeque<>();
+        private int inFlight;
+
+        private CircuitState circuitState = CircuitState.CLOSED;
+        private int consecutiveFailures;
+        private long openUntilNanos;
+        private boolean trialInFlight;
+
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder parked = new LongAdder();
+        private volatile double latencyEwmaMs;
+
+        Lane(String merchant) {
+            this.merchant = merchant;
+        }
+
+        /**
+         * Take a delivery slot; waits in the lane queue if all slots are busy
+         * Errors with LaneFullException if the queue is full as well.
+         */
+        public Mono<Lane> acquire() {
+            return Mono.create(sink -> {
+                boolean granted;
+                synchronized (this) {
+                    granted = inFlight < maxConcurrency;
+                    if (granted) {
+                        inFlight++;
+                    } else if (waiting.size() < maxQueued) {
+                        waiting.addLast(sink);
+                        sink.onCancel(() -> cancelWaiting(sink));
+                        return;
+                    }
+                }
+                if (granted) {
+                    sink.success(this);
+                } else {
+                    sink.error(new LaneFullException(merchant));
+                }
+            });
+        }
+
+        /**
+         * Return a slot, handing it to the next waiting delivery if any
+         */
+        public void release() {
+            MonoSink<Lane> next;
+            synchronized (this) {
+                next = waiting.pollFirst();
+                if (next == null) {
+                    inFlight--;
+                }
+            }
+            if (next != null) {
+                next.success(this);
+            }
+        }
+
+        private void cancelWaiting(MonoSink<Lane> sink) {
+            synchronized (this) {
+                waiting.remove(sink);
+            }
+        }
+
+        /**
+         * Whether a delivery may call the merchant now
+         * An open circuit lets one trial delivery through after open-duration (half-open).
+         */
+        public synchronized boolean allowRequest() {
+            switch (circuitState) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - openUntilNanos < 0) {
+                        return false;
+                    }
+                    circuitState = CircuitState.HALF_OPEN;
+                    trialInFlight = true;
+                    return true;
+                default:
+                    if (trialInFlight) {
+                        return false;
+                    }
+                    trialInFlight = true;
+                    return true;
+            }
+        }
+
+        /**
+         * Milliseconds until the open circuit allows a trial delivery
+         */
+        public synchronized long remainingOpenMs() {
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openUntilNanos - System.nanoTime()));
+        }
+
+        public void onSuccess(long latencyMs) {
+            delivered.increment();
+            latencyEwmaMs = latencyEwmaMs == 0 ? latencyMs : latencyEwmaMs + EWMA_ALPHA * (latencyMs - latencyEwmaMs);
+            synchronized (this) {
+                if (circuitState != CircuitState.CLOSED) {
+                    log.info("Webhook circuit of merchant {} closed", merchant);
+                }
+                circuitState = CircuitState.CLOSED;
+                consecutiveFailures = 0;
+                trialInFlight = false;
+            }
+        }
+
+        /**
+         * Record a failure that says the merchant is unhealthy (timeout, connection error, 5xx)
+         */
+        public void onFailure(long latencyMs) {
+            failed.increment();
+            latencyEwmaMs = latencyEwmaMs == 0 ? latencyMs : latencyEwmaMs + EWMA_ALPHA * (latencyMs - latencyEwmaMs);
+            synchronized (this) {
+                consecutiveFailures++;
+                trialInFlight = false;
+                if (circuitState == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                    if (circuitState != CircuitState.OPEN) {
+                        log.warn("Webhook circuit of merchant {} opened after {} consecutive failures",
+                                merchant, consecutiveFailures);
+                    }
+                    circuitState = CircuitState.OPEN;
+                    openUntilNanos = System.nanoTime() + openDurationNanos;
+                }
+            }
+        }
+
+        /**
+         * Record a delivery that ended without saying anything about merchant health (e.g. 4xx)
+         */
+        public synchronized void onNeutral() {
+            trialInFlight = false;
+        }
+
+        public void onParked() {
+            parked.increment();
+        }
+
+        public String getMerchant() {
+            return merchant;
+        }
+
+        public synchronized CircuitState getCircuitState() {
+            return circuitState;
+        }
+
+        public synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        public synchronized int getQueued() {
+            return waiting.size();
+        }
+
+        public long getDelivered() {
+            return delivered.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public long getParked() {
+            return parked.sum();
+        }
+
+        public double getLatencyEwmaMs() {
+            return latencyEwmaMs;
+        }
+    }
+}
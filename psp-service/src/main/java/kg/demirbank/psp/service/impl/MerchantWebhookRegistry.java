@@ -0,0 +1,206 @@
+package kg.demirbank.psp.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import kg.demirbank.psp.entity.MerchantWebhookEntity;
+import kg.demirbank.psp.repository.MerchantWebhookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of active merchant webhooks keyed by normalized appId
+ * Loaded fully at startup and refreshed incrementally by created_at/updated_at, so webhook dispatch
+ * does no database I/O. A periodic full reload picks up deleted rows; reload and invalidate are also
+ * exposed over JMX for out-of-band admin changes.
+ */
+@Component
+@ManagedResource(objectName = "kg.demirbank.psp:type=MerchantWebhookRegistry")
+@RequiredArgsConstructor
+@Slf4j
+public class MerchantWebhookRegistry {
+
+    private final MerchantWebhookRepository merchantWebhookRepository;
+
+    @Value("${webhook.registry.refresh-overlap-ms:60000}")
+    private long refreshOverlapMs;
+
+    /**
+     * Active merchants by normalized appId
+     */
+    private volatile Map<String, MerchantWebhook> merchants = new ConcurrentHashMap<>();
+
+    /**
+     * Normalized appId by row ID, to drop the old key when appId changes
+     */
+    private volatile Map<Long, String> keysById = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime watermark;
+    private volatile boolean loaded;
+
+    /**
+     * Immutable webhook target of a merchant
+     */
+    public record MerchantWebhook(Long id,
+                                  String merchantName,
+                                  String appId,
+                                  String apiKeyName,
+                                  String apiKeyValue,
+                                  String targetUrl,
+                                  int batchMaxSize,
+                                  long batchMaxWaitMs) {
+
+        static MerchantWebhook of(MerchantWebhookEntity entity) {
+            return new MerchantWebhook(entity.getId(), entity.getMerchantName(), entity.getAppId(),
+                    entity.getApiKeyName(), entity.getApiKeyValue(), entity.getTargetUrl(),
+                    entity.getBatchMaxSize() != null ? entity.getBatchMaxSize() : 1,
+                    entity.getBatchMaxWaitMs() != null ? entity.getBatchMaxWaitMs() : 0);
+        }
+
+        /**
+         * Whether the merchant opted in to batched deliveries
+         */
+        public boolean isBatching() {
+            return batchMaxSize > 1;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // Registry stays unloaded and falls back to the database until a refresh succeeds
+            log.error("Initial merchant webhook registry load failed", e);
+        }
+    }
+
+    /**
+     * Find active merchant webhook by serviceName (case-insensitive match with appId)
+     */
+    public Optional<MerchantWebhook> find(String serviceName) {
+        if (serviceName == null) {
+            return Optional.empty();
+        }
+        if (!loaded) {
+            return merchantWebhookRepository.findByAppIdIgnoreCaseAndIsActive(serviceName, true)
+                    .map(MerchantWebhook::of);
+        }
+        return Optional.ofNullable(merchants.get(normalize(serviceName)));
+    }
+
+    /**
+     * Replace registry content with all active merchants
+     */
+    @ManagedOperation(description = "Reload all merchant webhooks from the database")
+    @Scheduled(fixedDelayString = "${webhook.registry.full-reload-interval-ms:3600000}",
+            initialDelayString = "${webhook.registry.full-reload-interval-ms:3600000}")
+    public synchronized void reload() {
+        List<MerchantWebhookEntity> all = merchantWebhookRepository.findAll();
+        Map<String, MerchantWebhook> loadedMerchants = new ConcurrentHashMap<>();
+        Map<Long, String> loadedKeys = new ConcurrentHashMap<>();
+        LocalDateTime latest = null;
+        for (MerchantWebhookEntity entity : all) {
+            latest = later(latest, entity);
+            if (Boolean.TRUE.equals(entity.getIsActive())) {
+                String key = normalize(entity.getAppId());
+                loadedMerchants.put(key, MerchantWebhook.of(entity));
+                loadedKeys.put(entity.getId(), key);
+            }
+        }
+        merchants = loadedMerchants;
+        keysById = loadedKeys;
+        watermark = latest;
+        loaded = true;
+        log.info("Merchant webhook registry loaded: {} active merchants", loadedMerchants.size());
+    }
+
+    /**
+     * Apply rows created or updated since the last refresh
+     */
+    @Scheduled(fixedDelayString = "${webhook.registry.refresh-interval-ms:30000}",
+            initialDelayString = "${webhook.registry.refresh-interval-ms:30000}")
+    public synchronized void refresh() {
+        try {
+            if (!loaded) {
+                reload();
+                return;
+            }
+            if (watermark == null) {
+                // Table was empty at the last load
+                reload();
+                return;
+            }
+            // Overlap covers rows committed late with an earlier timestamp; re-applying is idempotent
+            List<MerchantWebhookEntity> changed = merchantWebhookRepository
+                    .findChangedSince(watermark.minusNanos(refreshOverlapMs * 1_000_000));
+            LocalDateTime latest = watermark;
+            for (MerchantWebhookEntity entity : changed) {
+                apply(entity);
+                latest = later(latest, entity);
+            }
+            watermark = latest;
+            if (!changed.isEmpty()) {
+                log.debug("Merchant webhook registry refreshed: {} rows applied", changed.size());
+            }
+        } catch (Exception e) {
+            log.error("Merchant webhook registry refresh failed", e);
+        }
+    }
+
+    /**
+     * Drop one merchant and re-read it from the database
+     */
+    @ManagedOperation(description = "Re-read one merchant webhook by appId")
+    public synchronized void invalidate(String appId) {
+        String key = normalize(appId);
+        MerchantWebhook removed = merchants.remove(key);
+        if (removed != null) {
+            keysById.remove(removed.id());
+        }
+        merchantWebhookRepository.findByAppIdIgnoreCaseAndIsActive(appId, true).ifPresent(this::apply);
+        log.info("Merchant webhook registry entry invalidated: {}", appId);
+    }
+
+    @ManagedAttribute(description = "Number of active merchants in the registry")
+    public int getSize() {
+        return merchants.size();
+    }
+
+    private void apply(MerchantWebhookEntity entity) {
+        String previousKey = keysById.remove(entity.getId());
+        if (previousKey != null) {
+            merchants.remove(previousKey);
+        }
+        if (Boolean.TRUE.equals(entity.getIsActive())) {
+            String key = normalize(entity.getAppId());
+            merchants.put(key, MerchantWebhook.of(entity));
+            keysById.put(entity.getId(), key);
+        }
+    }
+
+    private static LocalDateTime later(LocalDateTime current, MerchantWebhookEntity entity) {
+        LocalDateTime result = current;
+        for (LocalDateTime candidate : new LocalDateTime[]{entity.getCreatedAt(), entity.getUpdatedAt()}) {
+            if (candidate != null && (result == null || candidate.isAfter(result))) {
+                result = candidate;
+            }
+        }
+        return result;
+    }
+
+    private static String normalize(String appId) {
+        return appId.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,203 @@
+package kg.demirbank.psp.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import kg.demirbank.psp.entity.OperationEntity;
+import kg.demirbank.psp.enums.Status;
+import kg.demirbank.psp.repository.OperationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for operation progress
+ * Request pipelines submit immutable progress snapshots and continue without waiting for the database.
+ * Each operation is pinned to one single-threaded lane, so its snapshots are applied in submission order
+ * while different operations are written in parallel.
+ * A full lane is backpressure: the caller waits a bounded time for room on a worker thread,
+ * never writes on its own thread, and fails if the lane stays full.
+ */
+@Component
+@Slf4j
+public class OperationWriteBehind {
+
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 500;
+    private static final List<Status> OPEN_STATUSES = Arrays.stream(Status.values())
+            .filter(status -> !status.isFinal())
+            .toList();
+
+    private final OperationRepository operationRepository;
+    private final ThreadPoolExecutor[] lanes;
+
+    @Value("${operation.write-behind.enqueue-timeout-ms:1000}")
+    private long enqueueTimeoutMs;
+
+    @Value("${operation.write-behind.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    public OperationWriteBehind(OperationRepository operationRepository,
+                                @Value("${operation.write-behind.lanes:4}") int laneCount,
+                                @Value("${operation.write-behind.queue-capacity:10000}") int queueCapacity) {
+        this.operationRepository = operationRepository;
+        this.lanes = new ThreadPoolExecutor[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            String threadName = "operation-write-behind-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            // Worker must be running, a full lane is waited on through its queue
+            lanes[i].prestartAllCoreThreads();
+        }
+    }
+
+    /**
+     * Queue a progress snapshot for asynchronous persistence
+     * Completes immediately when the lane has room. Otherwise waits up to the enqueue timeout on a
+     * bounded-elastic thread and errors if the lane is still full. Callers chain the next step of the
+     * operation after it, so a later snapshot can never overtake this one.
+     *
+     * @param progress progress snapshot taken from the operation
+     */
+    public Mono<Void> submit(Progress progress) {
+        return queue(progress, () -> apply(progress));
+    }
+
+    /**
+     * Queue a progress snapshot and complete once it is written
+     * For steps that must not start before the state is durable. The snapshot goes through the
+     * operation's lane, so it is still applied after every snapshot submitted before it.
+     * Errors if the lane stays full or the write fails.
+     *
+     * @param progress progress snapshot taken from the operation
+     */
+    public Mono<Void> persist(Progress progress) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                write(progress);
+                written.complete(null);
+            } catch (Exception e) {
+                written.completeExceptionally(e);
+            }
+        };
+        return queue(progress, task).then(Mono.fromFuture(written));
+    }
+
+    private Mono<Void> queue(Progress progress, Runnable task) {
+        ThreadPoolExecutor lane = lanes[(int) Math.floorMod(progress.operationId(), (long) lanes.length)];
+        if (!lane.isShutdown() && lane.getQueue().offer(task)) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> enqueue(lane, task, progress))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Wait for room in a full lane
+     */
+    private void enqueue(ThreadPoolExecutor lane, Runnable task, Progress progress) {
+        try {
+            if (!lane.isShutdown() && lane.getQueue().offer(task, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.error("Write-behind lane is full, snapshot of operation {} with status {} not queued within {} ms",
+                progress.operationId(), progress.status(), enqueueTimeoutMs);
+        throw new RejectedExecutionException("Write-behind lane is full for operation " + progress.operationId());
+    }
+
+    /**
+     * Apply snapshot to the database
+     */
+    private void apply(Progress progress) {
+        try {
+            write(progress);
+        } catch (Exception e) {
+            log.error("Write-behind failed for operation: {} with status: {}",
+                    progress.operationId(), progress.status(), e);
+        }
+    }
+
+    private void write(Progress progress) {
+        int updated = operationRepository.updateProgressById(
+                progress.operationId(),
+                false,
+                OPEN_STATUSES,
+                progress.status(),
+                progress.amount(),
+                progress.transactionId(),
+                progress.receiptId(),
+                progress.executedAt(),
+                progress.errorMessage(),
+                progress.status() != null && progress.status().isFinal(),
+                LocalDateTime.now());
+        if (updated == 0) {
+            log.warn("Write-behind skipped operation {} with status {}: not found or already final",
+                    progress.operationId(), progress.status());
+        }
+    }
+
+    /**
+     * Drain pending snapshots on shutdown
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (ThreadPoolExecutor lane : lanes) {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            if (!lane.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                log.error("Write-behind lane did not drain within {} ms", shutdownTimeoutMs);
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of operation progress
+     */
+    public record Progress(Long operationId,
+                           Status status,
+                           Long amount,
+                           String transactionId,
+                           String receiptId,
+                           LocalDateTime executedAt,
+                           String errorMessage) {
+
+        /**
+         * Take snapshot of the current operation state
+         */
+        public static Progress of(OperationEntity operation) {
+            String errorMessage = operation.getErrorMessage();
+            if (errorMessage != null && errorMessage.length() > ERROR_MESSAGE_MAX_LENGTH) {
+                errorMessage = errorMessage.substring(0, ERROR_MESSAGE_MAX_LENGTH);
+            }
+            return new Progress(
+                    operation.getId(),
+                    operation.getStatus(),
+                    operation.getAmount(),
+                    operation.getTransactionId(),
+                    operation.getReceiptId(),
+                    operation.getExecutedAt(),
+                    errorMessage);
+        }
+    }
+}
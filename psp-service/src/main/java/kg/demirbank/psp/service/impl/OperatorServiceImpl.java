@@ -13,7 +13,8 @@ import kg.demirbank.psp.enums.OperationType;
 import kg.demirbank.psp.enums.Status;
 import kg.demirbank.psp.exception.PspException;
 import kg.demirbank.psp.exception.business.ResourceNotFoundException;
-import kg.demirbank.psp.exception.network.SystemErrorException;
+import kg.demirbank.psp.exception.network.*;
+import kg.demirbank.psp.metrics.FlowMetrics;
 import kg.demirbank.psp.repository.OperationRepository;
 import kg.demirbank.psp.service.clients.OperatorClient;
 import kg.demirbank.psp.service.OperatorService;
@@ -25,6 +26,12 @@ import reactor.core.publisher.Mono;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import static kg.demirbank.psp.metrics.FlowMetrics.STAGE_DB_FIND;
+import static kg.demirbank.psp.metrics.FlowMetrics.STAGE_DB_SAVE;
+import static kg.demirbank.psp.metrics.FlowMetrics.STAGE_OPERATOR_CHECK;
+import static kg.demirbank.psp.metrics.FlowMetrics.STAGE_OPERATOR_CREATE;
+import static kg.demirbank.psp.metrics.FlowMetrics.STAGE_OPERATOR_EXECUTE;
+
 /**
  * Implementation of operator service
  * Handles full merchant operations using operator client
@@ -34,8 +41,13 @@ import java.util.UUID;
 @Slf4j
 public class OperatorServiceImpl implements OperatorService {
     
+    private static final String FLOW_QR_CHECK = "operator.qr-check";
+    private static final String FLOW_PAYMENT = "operator.payment";
+    
     private final OperatorClient operatorClient;
     private final OperationRepository operationRepository;
+    private final OperationWriteBehind operationWriteBehind;
+    private final FlowMetrics flowMetrics;
     
     @Override
     public Mono<MerchantCheckResponseDto> checkQrPayment(MerchantCheckRequestDto request, ELQRData elqrData) {
@@ -48,7 +60,7 @@ public class OperatorServiceImpl implements OperatorService {
                 elqrData
         );
         
-        return Mono.fromCallable(() -> operationRepository.save(operation))
+        return flowMetrics.time(FLOW_QR_CHECK, STAGE_DB_SAVE, Mono.fromCallable(() -> operationRepository.save(operation)))
                 .flatMap(savedOperation -> {
                     log.debug("Operation saved with ID: {}", savedOperation.getId());
                     
@@ -86,7 +98,8 @@ public class OperatorServiceImpl implements OperatorService {
         log.info("Starting operator payment for session: {} with amount: {}", 
                 request.getPaymentSessionId(), request.getAmount());
         
-        return Mono.fromCallable(() -> operationRepository.findByPaymentSessionId(request.getPaymentSessionId()))
+        return flowMetrics.time(FLOW_PAYMENT, STAGE_DB_FIND,
+                        Mono.fromCallable(() -> operationRepository.findByPaymentSessionId(request.getPaymentSessionId())))
                 .flatMap(optional -> optional.map(Mono::just).orElse(Mono.error(new ResourceNotFoundException("Session not found"))))
                 .flatMap(operation -> {
                     log.debug("Found operation: {}", operation.getId());
@@ -97,68 +110,60 @@ public class OperatorServiceImpl implements OperatorService {
                         return Mono.error(new ResourceNotFoundException("Session not found for operator service"));
                     }
                     
-                    // Update operation status
+                    // Update operation status (persisted write-behind, off the critical path)
                     operation.setStatus(Status.IN_PROCESS);
                     operation.setAmount(request.getAmount());
-                    operation.setUpdatedAt(LocalDateTime.now());
+                    Mono<Void> inProcess = operationWriteBehind.submit(OperationWriteBehind.Progress.of(operation));
+                    
+                    // Create outgoing check request
+                    OutgoingCheckRequestDto outgoingCheckRequest = new OutgoingCheckRequestDto();
+                    outgoingCheckRequest.setMerchantId(operation.getMerchantId());
+                    outgoingCheckRequest.setBeneficiaryAccountNumber(operation.getBeneficiaryAccountNumber());
+                    outgoingCheckRequest.setMerchantCode(operation.getMerchantCode());
+                    outgoingCheckRequest.setAmount(request.getAmount());
                     
-                    return Mono.fromCallable(() -> operationRepository.save(operation))
-                            .flatMap(updatedOperation -> {
-                                log.debug("Operation updated, proceeding with operator payment");
+                    return inProcess
+                            .then(flowMetrics.time(FLOW_PAYMENT, STAGE_OPERATOR_CHECK, operatorClient.check(outgoingCheckRequest)))
+                            .flatMap(outgoingCheckResponse -> {
+                                log.debug("Operator check completed for account: {}, beneficiary: {}", 
+                                        operation.getBeneficiaryAccountNumber(), outgoingCheckResponse.getBeneficiaryName());
+                                return flowMetrics.time(FLOW_PAYMENT, STAGE_OPERATOR_CREATE,
+                                        operatorClient.create(createOutgoingCreateRequest(operation, request.getAmount())));
+                            })
+                            .flatMap(createResponse -> {
+                                log.debug("Operator transaction created: {}", createResponse.getTransactionId());
+                                
+                                // Persist IN_PROCESS with the operator transaction ID before execute moves the money:
+                                // if the service dies after this point the status poller finds the row and reconciles it
+                                operation.setTransactionId(createResponse.getTransactionId());
+                                operation.setReceiptId(createResponse.getTransactionId());
+                                operation.setStatus(Status.IN_PROCESS);
+                                return flowMetrics.time(FLOW_PAYMENT, STAGE_DB_SAVE,
+                                                operationWriteBehind.persist(OperationWriteBehind.Progress.of(operation)))
+                                        .then(flowMetrics.time(FLOW_PAYMENT, STAGE_OPERATOR_EXECUTE,
+                                                operatorClient.execute(createResponse.getTransactionId())));
+                            })
+                            .flatMap(executeResponse -> {
+                                log.debug("Operator transaction executed: {} with status: {}", 
+                                        operation.getTransactionId(), executeResponse.getStatus());
+                                
+                                // Execute response carries the real status; without it the transaction is still in process
+                                operation.setStatus(executeResponse.getStatus() != null ? executeResponse.getStatus() : Status.IN_PROCESS);
+                                operation.setExecutedAt(LocalDateTime.now());
                                 
-                                // Create outgoing check request
-                                OutgoingCheckRequestDto outgoingCheckRequest = new OutgoingCheckRequestDto();
-                                outgoingCheckRequest.setMerchantId(operation.getMerchantId());
-                                outgoingCheckRequest.setBeneficiaryAccountNumber(operation.getBeneficiaryAccountNumber());
-                                outgoingCheckRequest.setMerchantCode(operation.getMerchantCode());
-                                outgoingCheckRequest.setAmount(request.getAmount());
+                                log.info("Operator payment completed for session: {} with status: {}", 
+                                        request.getPaymentSessionId(), operation.getStatus());
                                 
-                                return operatorClient.check(outgoingCheckRequest)
-                                        .flatMap(outgoingCheckResponse -> {
-                                            log.debug("Operator check completed for account: {}, beneficiary: {}", 
-                                                    operation.getBeneficiaryAccountNumber(), outgoingCheckResponse.getBeneficiaryName());
-                                            
-                                            // Create outgoing transaction request
-                                            OutgoingCreateRequestDto outgoingCreateRequest = new OutgoingCreateRequestDto();
-                                            outgoingCreateRequest.setAmount(request.getAmount());
-                                            outgoingCreateRequest.setCustomerType(operation.getCustomerType());
-                                            outgoingCreateRequest.setQrType(operation.getQrType());
-                                            outgoingCreateRequest.setMerchantProvider(operation.getMerchantProvider());
-                                            outgoingCreateRequest.setMerchantId(operation.getMerchantId());
-                                            outgoingCreateRequest.setServiceId(operation.getServiceId());
-                                            outgoingCreateRequest.setServiceName(operation.getServiceName());
-                                            outgoingCreateRequest.setBeneficiaryAccountNumber(operation.getBeneficiaryAccountNumber());
-                                            outgoingCreateRequest.setMerchantCode(operation.getMerchantCode());
-                                            outgoingCreateRequest.setCurrencyCode(operation.getCurrencyCode());
-                                            outgoingCreateRequest.setQrTransactionId(operation.getQrTransactionId());
-                                            outgoingCreateRequest.setQrComment(operation.getQrComment());
-                                            outgoingCreateRequest.setQrLinkHash(operation.getQrLinkHash());
-                                            
-                                            return operatorClient.create(outgoingCreateRequest)
-                                                    .flatMap(outgoingTransactionResponse -> {
-                                                        log.debug("Operator transaction created: {}", outgoingTransactionResponse.getTransactionId());
-                                                        
-                                                        // Update operation with transaction details
-                                                        updatedOperation.setStatus(Status.SUCCESS);
-                                                        updatedOperation.setTransactionId(outgoingTransactionResponse.getTransactionId());
-                                                        updatedOperation.setReceiptId(outgoingTransactionResponse.getTransactionId());
-                                                        updatedOperation.setUpdatedAt(LocalDateTime.now());
-                                                        
-                                                        return Mono.fromCallable(() -> operationRepository.save(updatedOperation))
-                                                                .map(finalOperation -> {
-                                                                    log.info("Operator payment completed successfully for session: {}", request.getPaymentSessionId());
-                                                                    
-                                                                    MerchantMakePaymentResponseDto response = new MerchantMakePaymentResponseDto();
-                                                                    response.setReceiptId(finalOperation.getReceiptId());
-                                                                    response.setTransactionId(finalOperation.getTransactionId());
-                                                                    response.setAmount(finalOperation.getAmount());
-                                                                    response.setStatus(finalOperation.getStatus());
-                                                                    response.setCreatedDate(finalOperation.getUpdatedAt().toString());
-                                                                    return response;
-                                                                });
-                                                    });
-                                        });
-                            });
+                                MerchantMakePaymentResponseDto response = new MerchantMakePaymentResponseDto();
+                                response.setReceiptId(operation.getReceiptId());
+                                response.setTransactionId(operation.getTransactionId());
+                                response.setAmount(operation.getAmount());
+                                response.setStatus(operation.getStatus());
+                                response.setCreatedDate(operation.getExecutedAt().toString());
+                                return operationWriteBehind.submit(OperationWriteBehind.Progress.of(operation))
+                                        .thenReturn(response);
+                            })
+                            .onErrorResume(throwable -> recordFailure(operation, throwable).then(Mono.error(throwable)));
                 })
                 .onErrorMap(throwable -> {
                     if (throwable instanceof PspException) {
@@ -169,6 +174,55 @@ public class OperatorServiceImpl implements OperatorService {
                 });
     }
     
+    /**
+     * Build outgoing create request from operation data
+     */
+    private OutgoingCreateRequestDto createOutgoingCreateRequest(OperationEntity operation, Long amount) {
+        OutgoingCreateRequestDto outgoingCreateRequest = new OutgoingCreateRequestDto();
+        outgoingCreateRequest.setAmount(amount);
+        outgoingCreateRequest.setCustomerType(operation.getCustomerType());
+        outgoingCreateRequest.setQrType(operation.getQrType());
+        outgoingCreateRequest.setMerchantProvider(operation.getMerchantProvider());
+        outgoingCreateRequest.setMerchantId(operation.getMerchantId());
+        outgoingCreateRequest.setServiceId(operation.getServiceId());
+        outgoingCreateRequest.setServiceName(operation.getServiceName());
+        outgoingCreateRequest.setBeneficiaryAccountNumber(operation.getBeneficiaryAccountNumber());
+        outgoingCreateRequest.setMerchantCode(operation.getMerchantCode());
+        outgoingCreateRequest.setCurrencyCode(operation.getCurrencyCode());
+        outgoingCreateRequest.setQrTransactionId(operation.getQrTransactionId());
+        outgoingCreateRequest.setQrComment(operation.getQrComment());
+        outgoingCreateRequest.setQrLinkHash(operation.getQrLinkHash());
+        return outgoingCreateRequest;
+    }
+    
+    /**
+     * Record failed payment step
+     * Before create the payment definitely failed (ERROR). After create a transient error leaves
+     * the outcome unknown, so the operation stays IN_PROCESS for the GET fallback poller.
+     * A snapshot that cannot be queued is dropped here so the caller still sees the original error.
+     */
+    private Mono<Void> recordFailure(OperationEntity operation, Throwable throwable) {
+        boolean outcomeUnknown = operation.getTransactionId() != null && isTransientError(throwable);
+        operation.setStatus(outcomeUnknown ? Status.IN_PROCESS : Status.ERROR);
+        operation.setErrorMessage(throwable.getMessage());
+        log.warn("Operator payment failed for transaction: {}, recorded status: {}", 
+                operation.getTransactionId(), operation.getStatus());
+        return operationWriteBehind.submit(OperationWriteBehind.Progress.of(operation))
+                .onErrorResume(e -> Mono.empty());
+    }
+    
+    /**
+     * Check if the error does not prove that the operator rejected the transaction
+     */
+    private boolean isTransientError(Throwable throwable) {
+        return throwable instanceof NetworkException
+                || throwable instanceof NetworkTimeoutException
+                || throwable instanceof NetworkConnectionException
+                || throwable instanceof SupplierNotAvailableException
+                || throwable instanceof ExternalServerNotAvailableException
+                || throwable instanceof SystemErrorException;
+    }
+    
     /**
      * Create operation entity for tracking
      */
@@ -0,0 +1,228 @@
+package kg.demirbank.psp.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kg.demirbank.psp.entity.OperationEntity;
+import kg.demirbank.psp.enums.Status;
+import kg.demirbank.psp.exception.network.*;
+import kg.demirbank.psp.repository.OperationRepository;
+import kg.demirbank.psp.service.clients.OperatorClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * GET fallback poller for outgoing transactions
+ * Picks outgoing operations stuck in IN_PROCESS (no UPDATE callback arrived) and queries
+ * their status from the operator with bounded parallelism, jittered backoff and a global rate cap.
+ * Final statuses are written back in batches, one UPDATE statement per status.
+ * Each cycle claims its rows with SKIP LOCKED and moves their updatedAt, so several instances poll
+ * disjoint rows. An operation still unresolved after maxRetries polls is flagged for manual handling
+ * and no longer polled.
+ * A cycle blocks for as long as its GET requests take, so it runs on a dedicated thread and never
+ * occupies the shared scheduling pool used by the short periodic tasks (ack flush, sampling, outbox).
+ */
+@Component
+@ConditionalOnProperty(name = "operator.status-poller.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class OperatorStatusPoller {
+
+    private static final String UPDATED_BY = "STATUS_POLLER";
+    private static final String EXHAUSTED_REASON = "Status unresolved by the operator after all polls, manual handling required";
+
+    /**
+     * Oracle limits IN lists to 1000 elements
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final OperatorClient operatorClient;
+    private final OperationRepository operationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "operator-status-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${operator.status-poller.interval-ms:30000}")
+    private long intervalMs;
+
+    @Value("${operator.status-poller.initial-delay-ms:30000}")
+    private long initialDelayMs;
+
+    @Value("${operator.status-poller.stale-after-ms:60000}")
+    private long staleAfterMs;
+
+    @Value("${operator.status-poller.batch-size:200}")
+    private int batchSize;
+
+    @Value("${operator.status-poller.concurrency:8}")
+    private int concurrency;
+
+    @Value("${operator.status-poller.max-requests-per-second:50}")
+    private int maxRequestsPerSecond;
+
+    @Value("${operator.status-poller.retry.max-attempts:2}")
+    private int retryMaxAttempts;
+
+    @Value("${operator.status-poller.retry.backoff-ms:500}")
+    private long retryBackoffMs;
+
+    /**
+     * Start polling with fixed delay, so a slow cycle never overlaps with the next one
+     */
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::runCycle, initialDelayMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A failed cycle must not cancel the schedule
+     */
+    private void runCycle() {
+        try {
+            pollStaleTransactions();
+        } catch (Exception e) {
+            log.error("Status poller cycle failed", e);
+        }
+    }
+
+    /**
+     * Poll one batch of stale IN_PROCESS outgoing operations
+     */
+    public void pollStaleTransactions() {
+        List<OperationEntity> staleOperations = transactionTemplate.execute(status -> claimStale());
+
+        if (staleOperations == null || staleOperations.isEmpty()) {
+            return;
+        }
+
+        log.info("Status poller picked {} stale IN_PROCESS outgoing operations", staleOperations.size());
+
+        // Spacing between request starts caps the overall request rate regardless of concurrency
+        Duration spacing = Duration.ofNanos(1_000_000_000L / Math.max(1, maxRequestsPerSecond));
+
+        List<PollResult> results = Flux.fromIterable(staleOperations)
+                .delayElements(spacing)
+                .flatMap(this::queryStatus, Math.max(1, concurrency))
+                .collectList()
+                .block();
+
+        if (results != null) {
+            writeBack(results);
+        }
+    }
+
+    /**
+     * Lock the next stale operations and claim them for this cycle; the locks end with the transaction
+     */
+    private List<OperationEntity> claimStale() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OperationEntity> operations;
+        try (Stream<OperationEntity> stale = operationRepository.lockStaleOutgoingByStatus(
+                Status.IN_PROCESS, now.minus(Duration.ofMillis(staleAfterMs)))) {
+            operations = stale.limit(Math.min(batchSize, MAX_BATCH_SIZE)).toList();
+        }
+        if (!operations.isEmpty()) {
+            operationRepository.claimForPollByIds(operations.stream().map(OperationEntity::getId).toList(), now);
+        }
+        return operations;
+    }
+
+    /**
+     * Query operator for a single transaction status
+     * Retries only transient network/server errors; any remaining error yields an unresolved result
+     */
+    private Mono<PollResult> queryStatus(OperationEntity operation) {
+        return operatorClient.get(operation.getTransactionId())
+                .retryWhen(Retry.backoff(retryMaxAttempts, Duration.ofMillis(retryBackoffMs))
+                        .jitter(0.5)
+                        .filter(this::isRetryable))
+                .map(response -> new PollResult(operation.getId(), response.getStatus()))
+                .onErrorResume(e -> {
+                    log.warn("Status poll failed for transaction: {} - {}", operation.getTransactionId(), e.getMessage());
+                    return Mono.just(new PollResult(operation.getId(), null));
+                })
+                .defaultIfEmpty(new PollResult(operation.getId(), null));
+    }
+
+    /**
+     * Write poll results back in batches: one statement per final status plus one for unresolved operations
+     */
+    private void writeBack(List<PollResult> results) {
+        Map<Status, List<Long>> finalIds = new EnumMap<>(Status.class);
+        List<Long> unresolvedIds = new ArrayList<>();
+
+        for (PollResult result : results) {
+            if (result.status() != null && result.status().isFinal()) {
+                finalIds.computeIfAbsent(result.status(), s -> new ArrayList<>()).add(result.operationId());
+            } else {
+                unresolvedIds.add(result.operationId());
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        finalIds.forEach((status, ids) -> {
+            int updated = operationRepository.updateFinalStatusByIds(ids, status, Status.IN_PROCESS, now, UPDATED_BY);
+            log.info("Status poller resolved {} operations to status: {}", updated, status);
+        });
+
+        if (!unresolvedIds.isEmpty()) {
+            operationRepository.touchPolledByIds(unresolvedIds, Status.IN_PROCESS, now);
+            log.debug("Status poller left {} operations unresolved", unresolvedIds.size());
+            int exhausted = operationRepository.flagPollsExhaustedByIds(
+                    unresolvedIds, Status.IN_PROCESS, EXHAUSTED_REASON, UPDATED_BY);
+            if (exhausted > 0) {
+                Counter.builder("operator.poller.exhausted")
+                        .description("Outgoing operations left for manual handling after all status polls")
+                        .register(meterRegistry)
+                        .increment(exhausted);
+                log.error("Status poller gave up on {} operations, flagged for manual handling", exhausted);
+            }
+        }
+    }
+
+    /**
+     * Check if the error is transient and worth retrying
+     */
+    private boolean isRetryable(Throwable error) {
+        return error instanceof NetworkException
+                || error instanceof NetworkTimeoutException
+                || error instanceof NetworkConnectionException
+                || error instanceof SupplierNotAvailableException
+                || error instanceof ExternalServerNotAvailableException
+                || error instanceof SystemErrorException;
+    }
+
+    /**
+     * Status poll outcome for a single operation; null status means unresolved
+     */
+    private record PollResult(Long operationId, Status status) {
+    }
+}
@@ -0,0 +1,385 @@
+package kg.demirbank.psp.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kg.demirbank.psp.dto.webhook.WebhookMessageDto;
+import kg.demirbank.psp.entity.OutboxEventEntity;
+import kg.demirbank.psp.metrics.TraceParents;
+import kg.demirbank.psp.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Outbox publisher
+ * Claims the next pending outbox rows in a short transaction: they are locked with SKIP LOCKED and
+ * leased until claim-ttl-ms, so several instances take disjoint batches. The batch is then published
+ * to RabbitMQ outside any transaction on one dedicated channel (so the broker receives it in id order)
+ * and the publisher confirms are awaited. Acked rows are marked published and failed rows get their
+ * error recorded and their lease released, each with one UPDATE per batch, in a second short
+ * transaction. A batch that dies mid-way is picked up again once its lease ends. Delivery is at least
+ * once. Each event is routed to the partition of its transaction (WebhookPartitions).
+ * An event that cannot be sent because of its own content counts an attempt and is marked dead once
+ * it used up max-attempts, so it no longer heads every batch.
+ * While the broker is unreachable, blocked or nacking, events simply stay in the outbox without
+ * counting attempts: a batch stops at the first connection failure, and cycles back off exponentially
+ * so an outage costs one probe per interval instead of connection attempts for every pending row.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.publisher.enabled", havingValue = "true", matchIfMissing = true)
+@ManagedResource(objectName = "kg.demirbank.psp:type=OutboxPublisher")
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxPublisher {
+
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 500;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final WebhookPartitions webhookPartitions;
+    private final MeterRegistry meterRegistry;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private volatile long lagMs;
+    private volatile long backoffMs;
+    private volatile long backoffUntilNanos;
+    private volatile double confirmLatencyMs;
+    private volatile double publishLatencyMs;
+
+    @Value("${webhook.rabbitmq.exchange}")
+    private String exchangeName;
+
+    @Value("${outbox.publisher.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.publisher.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${outbox.publisher.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.publisher.claim-ttl-ms:60000}")
+    private long claimTtlMs;
+
+    @Value("${outbox.retention-ms:86400000}")
+    private long retentionMs;
+
+    @Value("${outbox.dead-retention-ms:2592000000}")
+    private long deadRetentionMs;
+
+    @Value("${outbox.publisher.backoff.initial-ms:1000}")
+    private long backoffInitialMs;
+
+    @Value("${outbox.publisher.backoff.max-ms:30000}")
+    private long backoffMaxMs;
+
+    /**
+     * Outcome of one batch
+     * Rejected events failed because of their content, broker failures are connection errors, nacks
+     * and confirm timeouts
+     */
+    private record BatchResult(int locked, int confirmed, int rejected, int brokerFailed) {
+    }
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    /**
+     * Drain pending events, batch after batch while full batches are locked
+     * A broker failure ends the cycle, and starts or extends the backoff when nothing was confirmed
+     */
+    @Scheduled(fixedDelayString = "${outbox.publisher.interval-ms:100}")
+    public void publishPending() {
+        // nanoTime has an arbitrary origin and may be negative, the deadline only counts while backing off
+        if (backoffMs > 0 && System.nanoTime() - backoffUntilNanos < 0) {
+            return;
+        }
+        try {
+            BatchResult result;
+            do {
+                result = publishBatch();
+            } while (result != null && result.brokerFailed() == 0 && result.locked() >= batchSize);
+            if (result != null) {
+                updateBackoff(result);
+            }
+        } catch (Exception e) {
+            log.error("Outbox publish cycle failed", e);
+        }
+    }
+
+    /**
+     * Claim, publish and record one batch; no transaction or row lock is held while publishing
+     */
+    private BatchResult publishBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEventEntity> events = transactionTemplate.execute(status -> claimPending(now));
+        if (events == null || events.isEmpty()) {
+            lagMs = 0;
+            return new BatchResult(0, 0, 0, 0);
+        }
+        lagMs = Math.max(0, Duration.between(events.get(0).getCreatedAt(), now).toMillis());
+
+        List<Long> ids = new ArrayList<>(events.size());
+        List<CorrelationData> confirms = new ArrayList<>(events.size());
+        List<OutboxEventEntity> rejected = new ArrayList<>();
+        List<String> rejectErrors = new ArrayList<>();
+        List<Long> brokerFailedIds = new ArrayList<>();
+        String brokerError = null;
+        long sendStart = System.nanoTime();
+        try {
+            // Scoped operations keep the whole batch on one channel, which preserves publish order
+            rabbitTemplate.invoke(operations -> {
+                for (OutboxEventEntity event : events) {
+                    try {
+                        WebhookMessageDto message = objectMapper.readValue(event.getPayload(), WebhookMessageDto.class);
+                        CorrelationData correlationData = new CorrelationData(String.valueOf(event.getId()));
+                        operations.convertAndSend(exchangeName,
+                                webhookPartitions.routingKeyFor(message.getPspTransactionId()), message,
+                                TraceParents.header(message.getTraceParent()), correlationData);
+                        ids.add(event.getId());
+                        confirms.add(correlationData);
+                    } catch (AmqpConnectException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        log.warn("Outbox event {} could not be published: {}", event.getId(), e.getMessage());
+                        rejected.add(event);
+                        rejectErrors.add(e.getMessage());
+                    }
+                }
+                return null;
+            });
+        } catch (AmqpConnectException e) {
+            // Broker unreachable: the remaining events would fail the same way, leave them untouched
+            int next = ids.size() + rejected.size();
+            if (next < events.size()) {
+                brokerFailedIds.add(events.get(next).getId());
+            }
+            brokerError = e.getMessage();
+        }
+
+        List<Long> publishedIds = new ArrayList<>(ids.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (int i = 0; i < confirms.size(); i++) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                CorrelationData.Confirm confirm = confirms.get(i).getFuture().get(remaining, TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    publishedIds.add(ids.get(i));
+                } else {
+                    brokerFailedIds.add(ids.get(i));
+                    brokerError = "nack: " + confirm.getReason();
+                }
+            } catch (TimeoutException e) {
+                brokerFailedIds.add(ids.get(i));
+                brokerError = "confirm timeout";
+            } catch (Exception e) {
+                brokerFailedIds.add(ids.get(i));
+                brokerError = e.getMessage();
+            }
+        }
+
+        LocalDateTime confirmedAt = LocalDateTime.now();
+        if (!publishedIds.isEmpty()) {
+            recordLatency(events, publishedIds.size(), sendStart, confirmedAt);
+        }
+        String rejectError = rejectErrors.isEmpty() ? null : rejectErrors.get(rejectErrors.size() - 1);
+        String lastBrokerError = brokerError;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!publishedIds.isEmpty()) {
+                outboxEventRepository.markPublished(publishedIds, confirmedAt);
+            }
+            if (!rejected.isEmpty()) {
+                markRejected(rejected, rejectError, confirmedAt);
+            }
+            if (!brokerFailedIds.isEmpty()) {
+                outboxEventRepository.recordError(brokerFailedIds, truncate(lastBrokerError));
+            }
+        });
+        published.add(publishedIds.size());
+        failed.add(brokerFailedIds.size());
+        if (!rejected.isEmpty() || !brokerFailedIds.isEmpty()) {
+            log.warn("Outbox batch: {} published, {} rejected, {} broker failures, last error: {}",
+                    publishedIds.size(), rejected.size(), brokerFailedIds.size(),
+                    brokerError != null ? brokerError : rejectError);
+        }
+        return new BatchResult(events.size(), publishedIds.size(), rejected.size(), brokerFailedIds.size());
+    }
+
+    /**
+     * Lock the next pending events and lease them to this batch; the locks end with the transaction
+     */
+    private List<OutboxEventEntity> claimPending(LocalDateTime now) {
+        List<OutboxEventEntity> events;
+        try (Stream<OutboxEventEntity> pending = outboxEventRepository.lockPending(maxAttempts, now)) {
+            events = pending.limit(batchSize).toList();
+        }
+        if (!events.isEmpty()) {
+            outboxEventRepository.claim(events.stream().map(OutboxEventEntity::getId).toList(),
+                    now.plus(Duration.ofMillis(claimTtlMs)));
+        }
+        return events;
+    }
+
+    /**
+     * Count an attempt for events that could not be sent and mark those out of attempts as dead
+     */
+    private void markRejected(List<OutboxEventEntity> rejected, String error, LocalDateTime now) {
+        List<Long> rejectedIds = new ArrayList<>(rejected.size());
+        List<Long> deadIds = new ArrayList<>();
+        for (OutboxEventEntity event : rejected) {
+            rejectedIds.add(event.getId());
+            if (event.getAttempts() + 1 >= maxAttempts) {
+                deadIds.add(event.getId());
+                log.error("Outbox event {} for operation {} is dead after {} attempts, last error: {}",
+                        event.getId(), event.getAggregateId(), event.getAttempts() + 1, error);
+            }
+        }
+        outboxEventRepository.markFailed(rejectedIds, truncate(error));
+        failed.add(rejectedIds.size());
+        if (!deadIds.isEmpty()) {
+            outboxEventRepository.markDead(deadIds, now);
+            dead.add(deadIds.size());
+        }
+    }
+
+    /**
+     * Confirm latency: first send to last confirm of the batch
+     * Publish latency: commit of the oldest event to its confirm, the delay the outbox adds
+     */
+    private void recordLatency(List<OutboxEventEntity> events, int confirmedCount, long sendStart,
+                               LocalDateTime confirmedAt) {
+        double confirmMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sendStart);
+        double publishMs = Math.max(0, Duration.between(events.get(0).getCreatedAt(), confirmedAt).toMillis());
+        confirmLatencyMs = ewma(confirmLatencyMs, confirmMs);
+        publishLatencyMs = ewma(publishLatencyMs, publishMs);
+        Timer.builder("webhook.outbox.confirm")
+                .description("Time from first send to last broker confirm of an outbox batch")
+                .register(meterRegistry)
+                .record((long) confirmMs, TimeUnit.MILLISECONDS);
+        Timer.builder("webhook.outbox.publish.delay")
+                .description("Time from commit of the oldest event of a batch to its broker confirm")
+                .register(meterRegistry)
+                .record((long) publishMs, TimeUnit.MILLISECONDS);
+        log.debug("Outbox batch of {} confirmed in {} ms, oldest event published {} ms after commit",
+                confirmedCount, confirmMs, publishMs);
+    }
+
+    private static double ewma(double current, double sample) {
+        return current == 0 ? sample : current + EWMA_ALPHA * (sample - current);
+    }
+
+    /**
+     * Back off while the broker fails batches without a single confirm, reset once it confirms again
+     * Events rejected for their own content say nothing about the broker and never start a backoff
+     */
+    private void updateBackoff(BatchResult result) {
+        if (result.brokerFailed() > 0 && result.confirmed() == 0) {
+            backoffMs = backoffMs == 0 ? backoffInitialMs : Math.min(backoffMaxMs, backoffMs * 2);
+            backoffUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+            log.warn("Outbox publishing paused for {} ms, broker unavailable; events stay pending", backoffMs);
+        } else if (backoffMs > 0 && result.confirmed() > 0) {
+            log.info("Outbox publishing resumed after broker recovery");
+            backoffMs = 0;
+        }
+    }
+
+    /**
+     * Delete published events past retention, and dead events past the longer dead retention
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:600000}")
+    public void purgePublished() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime publishedBefore = now.minus(Duration.ofMillis(retentionMs));
+            LocalDateTime deadBefore = now.minus(Duration.ofMillis(deadRetentionMs));
+            int[] deleted = transactionTemplate.execute(status -> new int[] {
+                    outboxEventRepository.deletePublishedBefore(publishedBefore),
+                    outboxEventRepository.deleteDeadBefore(deadBefore)});
+            if (deleted != null && deleted[0] > 0) {
+                log.info("Outbox cleanup removed {} published events", deleted[0]);
+            }
+            if (deleted != null && deleted[1] > 0) {
+                log.warn("Outbox cleanup removed {} dead events never published", deleted[1]);
+            }
+        } catch (Exception e) {
+            log.error("Outbox cleanup failed", e);
+        }
+    }
+
+    /**
+     * Age of the oldest event in the last claimed batch, 0 when the outbox was empty
+     */
+    @ManagedAttribute(description = "Age of the oldest pending event seen by the last cycle, ms")
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    @ManagedAttribute(description = "Current pause between publish attempts while the broker is unavailable, ms")
+    public long getBackoffMs() {
+        return backoffMs;
+    }
+
+    @ManagedAttribute(description = "Smoothed time from first send to last broker confirm of a batch, ms")
+    public long getConfirmLatencyMs() {
+        return Math.round(confirmLatencyMs);
+    }
+
+    @ManagedAttribute(description = "Smoothed time from commit of an event to its broker confirm, ms")
+    public long getPublishLatencyMs() {
+        return Math.round(publishLatencyMs);
+    }
+
+    @ManagedAttribute(description = "Events confirmed by the broker")
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    @ManagedAttribute(description = "Failed publish attempts")
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @ManagedAttribute(description = "Events marked dead after using up their attempts")
+    public long getDeadCount() {
+        return dead.sum();
+    }
+
+    @ManagedAttribute(description = "Events not yet published, dead events excluded (database count)")
+    public long getPendingCount() {
+        return outboxEventRepository.countByPublishedAtIsNullAndDeadAtIsNull();
+    }
+
+    @ManagedAttribute(description = "Dead events kept in the outbox (database count)")
+    public long getDeadEventCount() {
+        return outboxEventRepository.countByDeadAtIsNotNull();
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= ERROR_MESSAGE_MAX_LENGTH) {
+            return error;
+        }
+        return error.substring(0, ERROR_MESSAGE_MAX_LENGTH);
+    }
+}
@@ -0,0 +1,165 @@
+package kg.demirbank.psp.service.impl;
+
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batches acknowledgements of webhook deliveries per channel
+ * Deliveries complete out of order. Completed tags below the oldest delivery still in flight are
+ * acked with one multiple=true frame; completed tags behind a slower delivery are acked one by one
+ * so they do not hold prefetch. Flushes happen every ack-batch-size completions and every
+ * ack-interval-ms. Relies on the container handing a channel's deliveries to the listener in tag
+ * order, which holds for one consumer per channel.
+ */
+@Component
+@ManagedResource(objectName = "kg.demirbank.psp:type=WebhookAckBatcher")
+@Slf4j
+public class WebhookAckBatcher {
+
+    private final Map<Channel, Tracker> trackers = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder ackFrames = new LongAdder();
+
+    public WebhookAckBatcher(@Value("${webhook.rabbitmq.listener.ack-batch-size:50}") int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Register a delivery handed to the listener; must be called in delivery order
+     */
+    public void received(Channel channel, long deliveryTag) {
+        trackers.computeIfAbsent(channel, Tracker::new).received(deliveryTag);
+    }
+
+    /**
+     * Mark a delivery as done; the ack is sent with the next flush
+     */
+    public void ack(Channel channel, long deliveryTag) {
+        Tracker tracker = trackers.get(channel);
+        if (tracker != null) {
+            tracker.completed(deliveryTag);
+        }
+    }
+
+    /**
+     * Reject a delivery for redelivery, immediately
+     */
+    public void nack(Channel channel, long deliveryTag) {
+        Tracker tracker = trackers.get(channel);
+        if (tracker != null) {
+            tracker.rejected(deliveryTag);
+        }
+    }
+
+    /**
+     * Flush pending acks of all channels; drops channels that were closed (the broker redelivers
+     * their unacked messages)
+     */
+    @Scheduled(fixedDelayString = "${webhook.rabbitmq.listener.ack-interval-ms:100}")
+    public void flushAll() {
+        trackers.values().forEach(Tracker::flush);
+    }
+
+    @ManagedAttribute(description = "Deliveries acknowledged")
+    public long getAckedCount() {
+        return acked.sum();
+    }
+
+    @ManagedAttribute(description = "Ack frames sent to the broker")
+    public long getAckFrameCount() {
+        return ackFrames.sum();
+    }
+
+    /**
+     * Outstanding and completed delivery tags of one channel, guarded by the tracker monitor
+     */
+    private final class Tracker {
+
+        private final Channel channel;
+        private final NavigableSet<Long> inFlight = new TreeSet<>();
+        private final NavigableSet<Long> completed = new TreeSet<>();
+
+        Tracker(Channel channel) {
+            this.channel = channel;
+        }
+
+        synchronized void received(long deliveryTag) {
+            inFlight.add(deliveryTag);
+        }
+
+        void completed(long deliveryTag) {
+            boolean full;
+            synchronized (this) {
+                if (!inFlight.remove(deliveryTag)) {
+                    return;
+                }
+                completed.add(deliveryTag);
+                full = completed.size() >= batchSize;
+            }
+            if (full) {
+                flush();
+            }
+        }
+
+        synchronized void rejected(long deliveryTag) {
+            if (!inFlight.remove(deliveryTag)) {
+                return;
+            }
+            try {
+                channel.basicNack(deliveryTag, false, true);
+            } catch (IOException e) {
+                discard(e);
+            }
+        }
+
+        synchronized void flush() {
+            if (!channel.isOpen()) {
+                discard(null);
+                return;
+            }
+            if (completed.isEmpty()) {
+                return;
+            }
+            try {
+                NavigableSet<Long> prefix = inFlight.isEmpty() ? completed : completed.headSet(inFlight.first(), false);
+                if (!prefix.isEmpty()) {
+                    channel.basicAck(prefix.last(), true);
+                    ackFrames.increment();
+                    acked.add(prefix.size());
+                    prefix.clear();
+                }
+                for (Long deliveryTag : completed) {
+                    channel.basicAck(deliveryTag, false);
+                    ackFrames.increment();
+                    acked.increment();
+                }
+                completed.clear();
+            } catch (IOException e) {
+                discard(e);
+            }
+        }
+
+        private void discard(IOException error) {
+            trackers.remove(channel, this);
+            inFlight.clear();
+            completed.clear();
+            if (error != null) {
+                log.warn("Webhook acks on channel {} failed, unacked deliveries will be redelivered: {}",
+                        channel.getChannelNumber(), error.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package kg.demirbank.psp.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kg.demirbank.psp.dto.webhook.WebhookMessageDto;
+import kg.demirbank.psp.enums.Status;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops webhook notifications superseded by a later status of the same transaction
+ * Every message is registered on arrival, before it waits for its turn. Right before the HTTP call
+ * a message with a droppable (intermediate) status is skipped if a later status for the same
+ * qrTransactionId has already arrived, so the merchant gets the final status without a stale
+ * CREATED in front of it. Final statuses are never dropped.
+ */
+@Component
+@ManagedResource(objectName = "kg.demirbank.psp:type=WebhookCoalescer")
+@Slf4j
+public class WebhookCoalescer {
+
+    private final boolean enabled;
+    private final Set<Status> droppable = EnumSet.noneOf(Status.class);
+    private final Cache<String, Status> latestStatus;
+    private final LongAdder coalesced = new LongAdder();
+
+    public WebhookCoalescer(@Value("${webhook.coalescing.enabled:true}") boolean enabled,
+                            @Value("${webhook.coalescing.droppable-statuses:10,20}") List<Integer> droppableCodes,
+                            @Value("${webhook.coalescing.retention-ms:600000}") long retentionMs,
+                            @Value("${webhook.coalescing.max-keys:100000}") long maxKeys) {
+        this.enabled = enabled;
+        for (Integer code : droppableCodes) {
+            Status status = Status.fromCode(code);
+            if (status.isFinal()) {
+                log.warn("Final status {} cannot be coalesced, ignored", status);
+            } else {
+                droppable.add(status);
+            }
+        }
+        this.latestStatus = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofMillis(retentionMs))
+                .build();
+    }
+
+    /**
+     * Record that a message arrived; keeps the latest status seen per transaction
+     */
+    public void register(WebhookMessageDto message) {
+        String key = keyOf(message);
+        Status status = statusOf(message);
+        if (!enabled || key == null || status == null) {
+            return;
+        }
+        latestStatus.asMap().merge(key, status, (seen, arrived) -> isLater(arrived, seen) ? arrived : seen);
+    }
+
+    /**
+     * Whether the message may be dropped because a later status of its transaction is known
+     */
+    public boolean isSuperseded(WebhookMessageDto message) {
+        String key = keyOf(message);
+        Status status = statusOf(message);
+        if (!enabled || key == null || status == null || !droppable.contains(status)) {
+            return false;
+        }
+        Status latest = latestStatus.getIfPresent(key);
+        if (latest == null || !isLater(latest, status)) {
+            return false;
+        }
+        coalesced.increment();
+        log.debug("Webhook {} for transaction {} superseded by {}, not delivered", status, key, latest);
+        return true;
+    }
+
+    @ManagedAttribute(description = "Deliveries saved by dropping superseded notifications")
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Final statuses come after intermediate ones; intermediate ones are ordered by code
+     */
+    private static boolean isLater(Status candidate, Status reference) {
+        if (candidate.isFinal() != reference.isFinal()) {
+            return candidate.isFinal();
+        }
+        return !candidate.isFinal() && candidate.getCode() > reference.getCode();
+    }
+
+    private static String keyOf(WebhookMessageDto message) {
+        if (message.getPayload() != null && message.getPayload().getQrTransactionId() != null) {
+            return message.getPayload().getQrTransactionId();
+        }
+        return message.getPspTransactionId();
+    }
+
+    private static Status statusOf(WebhookMessageDto message) {
+        if (message.getPayload() == null || message.getPayload().getStatus() == null) {
+            return null;
+        }
+        try {
+            return Status.fromCode(message.getPayload().getStatus());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
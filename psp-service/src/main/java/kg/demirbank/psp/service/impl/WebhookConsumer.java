@@ -1,80 +1,463 @@
 package kg.demirbank.psp.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kg.demirbank.psp.dto.webhook.WebhookBatchItemDto;
+import kg.demirbank.psp.dto.webhook.WebhookBatchResultDto;
 import kg.demirbank.psp.dto.webhook.WebhookMessageDto;
+import kg.demirbank.psp.metrics.TraceParents;
+import kg.demirbank.psp.util.LogContext;
+import kg.demirbank.psp.util.LoggingUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Webhook consumer for processing webhook messages from RabbitMQ
- * Sends HTTP POST requests to merchant target URLs
+ * Sends HTTP POST requests to merchant target URLs over a pooled non-blocking client.
+ * The listener starts the delivery and returns; the message is acknowledged once the outcome is
+ * known, in batches per channel (WebhookAckBatcher).
+ * Notifications superseded by a later status are dropped (WebhookCoalescer). Deliveries pass the
+ * merchant's lane (MerchantDeliveryGuard); failed deliveries are republished to a delay tier or to
+ * the DLQ (see WebhookRetryPolicy). Merchants that opted in to batching receive a JSON array of
+ * notifications per request; each message is acknowledged with the outcome of its batch.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class WebhookConsumer {
     
+    /**
+     * Listener ID of the shared queue, whose consumers are scaled by WebhookConsumerScaler
+     */
+    public static final String SHARED_LISTENER_ID = "webhookSharedListener";
+    
+    private static final int ERROR_MAX_LENGTH = 500;
+    
+    private static final String CONSUME_TIMER = "webhook.consume";
+    private static final String DELIVERY_TIMER = "webhook.delivery";
+    private static final String REPUBLISH_COUNTER = "webhook.republished";
+    private static final String MODE_SINGLE = "single";
+    private static final String MODE_BATCH = "batch";
+    
     private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate;
+    private final WebClient webhookWebClient;
+    private final RabbitTemplate rabbitTemplate;
+    private final WebhookRetryPolicy retryPolicy;
+    private final MerchantDeliveryGuard deliveryGuard;
+    private final WebhookCoalescer coalescer;
+    private final MerchantWebhookRegistry merchantWebhookRegistry;
+    private final WebhookAckBatcher ackBatcher;
+    private final WebhookConsumerScaler consumerScaler;
+    private final MeterRegistry meterRegistry;
+    private final KeyedSequencer sequencer = new KeyedSequencer();
+    private final KeyedBatcher<PendingDelivery> batcher = new KeyedBatcher<>();
+    
+    @Value("${webhook.batching.enabled:true}")
+    private boolean batchingEnabled;
+    
+    @Value("${webhook.batching.max-size:100}")
+    private int batchMaxSizeLimit;
+    
+    @Value("${webhook.batching.max-wait-ms:5000}")
+    private long batchMaxWaitLimitMs;
+    
+    @Value("${webhook.retry.confirm-timeout-ms:5000}")
+    private long republishConfirmTimeoutMs;
+    
+    @Value("${webhook.retry.requeue-delay-ms:5000}")
+    private long requeueDelayMs;
     
-    @Value("${webhook.http.timeout-ms:5000}")
-    private int httpTimeoutMs;
+    /**
+     * Message waiting for its batch, with the retries it already used
+     */
+    private record PendingDelivery(WebhookMessageDto message, int previousRetries) {
+    }
+    
+    /**
+     * Listener entry: start the delivery without holding the consumer thread
+     * Partition queues carry first attempts, the shared queue carries retries and unpartitioned messages.
+     * A delivery that could not be completed nor republished is rejected for redelivery after
+     * requeue-delay-ms, so a persistent republish failure does not redeliver in a tight loop.
+     */
+    @RabbitListener(id = SHARED_LISTENER_ID, queues = "${webhook.rabbitmq.queue}")
+    @RabbitListener(queues = "#{@webhookPartitions.listenQueueNames()}",
+            containerFactory = "webhookPartitionContainerFactory")
+    public void onMessage(WebhookMessageDto message,
+                          @Header(name = WebhookRetryPolicy.ATTEMPT_HEADER, required = false) Integer attempt,
+                          Channel channel,
+                          @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+        ackBatcher.received(channel, deliveryTag);
+        long start = System.nanoTime();
+        processWebhook(message, attempt)
+                .doFinally(signal -> consumerScaler.recordHoldTime(elapsedMs(start)))
+                .contextWrite(LogContext.with(LoggingUtil.PSP_TRANSACTION_ID, message.getPspTransactionId()))
+                // Listener observation is current on this thread, make it the parent of the delivery
+                .contextCapture()
+                .subscribe(null,
+                        e -> {
+                            log.warn("Webhook message for {} requeued in {} ms: {}",
+                                    message.getTargetUrl(), requeueDelayMs, e.getMessage());
+                            Mono.delay(Duration.ofMillis(requeueDelayMs)).subscribe(tick -> {
+                                ackBatcher.nack(channel, deliveryTag);
+                                recordConsume(start, "requeued");
+                            });
+                        },
+                        () -> {
+                            ackBatcher.ack(channel, deliveryTag);
+                            recordConsume(start, "acked");
+                        });
+    }
+    
+    /**
+     * Deliver one message; deliveries of the same transaction run one after another in arrival order
+     */
+    public Mono<Void> processWebhook(WebhookMessageDto message, Integer attempt) {
+        int previousRetries = attempt != null ? attempt : 0;
+        coalescer.register(message);
+        return sequencer.run(message.getPspTransactionId(), () -> guardedDelivery(message, previousRetries));
+    }
     
-    @RabbitListener(queues = "${webhook.rabbitmq.queue}")
-    public void processWebhook(WebhookMessageDto message) {
+    private Mono<Void> guardedDelivery(WebhookMessageDto message, int previousRetries) {
+        if (coalescer.isSuperseded(message)) {
+            return Mono.empty();
+        }
+        MerchantDeliveryGuard.Lane lane = deliveryGuard.lane(message);
+        MerchantWebhookRegistry.MerchantWebhook batching = batchingMerchant(message);
+        if (batching != null) {
+            return batcher.add(lane.getMerchant(), new PendingDelivery(message, previousRetries),
+                    Math.min(batching.batchMaxSize(), batchMaxSizeLimit),
+                    Math.min(batching.batchMaxWaitMs(), batchMaxWaitLimitMs),
+                    this::deliverBatch);
+        }
+        return lane.acquire()
+                .flatMap(acquired -> {
+                    // Checked again after waiting for a slot, a later status may have arrived meanwhile
+                    if (coalescer.isSuperseded(message)) {
+                        lane.release();
+                        return Mono.empty();
+                    }
+                    if (!lane.allowRequest()) {
+                        lane.release();
+                        return park(message, lane, previousRetries, lane.remainingOpenMs(), "circuit open");
+                    }
+                    long start = System.nanoTime();
+                    return deliver(message)
+                            .doOnSuccess(ignored -> {
+                                lane.onSuccess(elapsedMs(start));
+                                recordDelivery(MODE_SINGLE, start, null);
+                            })
+                            .onErrorResume(e -> {
+                                recordDelivery(MODE_SINGLE, start, e);
+                                if (retryPolicy.isRetryable(e)) {
+                                    lane.onFailure(elapsedMs(start));
+                                } else {
+                                    lane.onNeutral();
+                                }
+                                return handleFailure(message, previousRetries, e);
+                            })
+                            .doFinally(signal -> lane.release());
+                })
+                .onErrorResume(MerchantDeliveryGuard.LaneFullException.class,
+                        e -> park(message, lane, previousRetries, 0, "merchant lane full"));
+    }
+    
+    private Mono<Void> deliver(WebhookMessageDto message) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(message.getPayload()))
+                .flatMap(payloadJson -> {
+                    MerchantWebhookRegistry.MerchantWebhook merchant = merchantFor(message);
+                    log.info("Processing webhook for target URL: {}", message.getTargetUrl());
+                    return webhookWebClient.post()
+                            .uri(message.getTargetUrl())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(merchant.apiKeyName(), merchant.apiKeyValue())
+                            .bodyValue(payloadJson)
+                            .retrieve()
+                            .toBodilessEntity();
+                })
+                .doOnNext(response -> log.info("Webhook delivered successfully to: {}", message.getTargetUrl()))
+                .then();
+    }
+    
+    /**
+     * Merchant of the message, whose API key authenticates the delivery
+     * The key is read from the registry at send time and never stored in the outbox or the queues.
+     * A merchant that is no longer active fails the delivery without retry.
+     */
+    private MerchantWebhookRegistry.MerchantWebhook merchantFor(WebhookMessageDto message) {
+        return merchantWebhookRegistry.find(message.getAppId())
+                .orElseThrow(() -> new IllegalStateException(
+                        "No active merchant webhook for appId " + message.getAppId()));
+    }
+    
+    /**
+     * Merchant settings if the message's merchant receives batched deliveries, null otherwise
+     */
+    private MerchantWebhookRegistry.MerchantWebhook batchingMerchant(WebhookMessageDto message) {
+        if (!batchingEnabled || message.getAppId() == null) {
+            return null;
+        }
+        return merchantWebhookRegistry.find(message.getAppId())
+                .filter(MerchantWebhookRegistry.MerchantWebhook::isBatching)
+                .orElse(null);
+    }
+    
+    /**
+     * Deliver one batch through the merchant's lane as a single request
+     * A failed request fails every item; items the merchant reports as failed are retried individually.
+     */
+    private Mono<Void> deliverBatch(List<PendingDelivery> batch) {
+        List<PendingDelivery> items = batch.stream()
+                .filter(pending -> !coalescer.isSuperseded(pending.message()))
+                .toList();
+        if (items.isEmpty()) {
+            return Mono.empty();
+        }
+        WebhookMessageDto first = items.get(0).message();
+        MerchantDeliveryGuard.Lane lane = deliveryGuard.lane(first);
+        return lane.acquire()
+                .flatMap(acquired -> {
+                    if (!lane.allowRequest()) {
+                        lane.release();
+                        return parkAll(items, lane, lane.remainingOpenMs(), "circuit open");
+                    }
+                    long start = System.nanoTime();
+                    return postBatch(first, items)
+                            .map(failedKeys -> {
+                                lane.onSuccess(elapsedMs(start));
+                                recordDelivery(MODE_BATCH, start, null);
+                                return retryFailedItems(items, failedKeys);
+                            })
+                            .onErrorResume(e -> {
+                                recordDelivery(MODE_BATCH, start, e);
+                                if (retryPolicy.isRetryable(e)) {
+                                    lane.onFailure(elapsedMs(start));
+                                } else {
+                                    lane.onNeutral();
+                                }
+                                return Mono.just(Flux.fromIterable(items)
+                                        .concatMap(pending -> handleFailure(pending.message(),
+                                                pending.previousRetries(), e))
+                                        .then());
+                            })
+                            .flatMap(Function.identity())
+                            .doFinally(signal -> lane.release());
+                })
+                .onErrorResume(MerchantDeliveryGuard.LaneFullException.class,
+                        e -> parkAll(items, lane, 0, "merchant lane full"));
+    }
+    
+    /**
+     * POST the batch as a JSON array; emits the idempotency keys the merchant reported as failed
+     */
+    private Mono<Set<String>> postBatch(WebhookMessageDto first, List<PendingDelivery> items) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(items.stream()
+                        .map(pending -> WebhookBatchItemDto.of(pending.message()))
+                        .toList()))
+                .flatMap(payloadJson -> {
+                    MerchantWebhookRegistry.MerchantWebhook merchant = merchantFor(first);
+                    log.info("Processing webhook batch of {} for target URL: {}", items.size(), first.getTargetUrl());
+                    return webhookWebClient.post()
+                            .uri(first.getTargetUrl())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(merchant.apiKeyName(), merchant.apiKeyValue())
+                            .bodyValue(payloadJson)
+                            .retrieve()
+                            .bodyToMono(String.class);
+                })
+                .map(this::failedKeys)
+                .defaultIfEmpty(Set.of())
+                .doOnNext(failed -> log.info("Webhook batch of {} delivered to: {}, {} items failed",
+                        items.size(), first.getTargetUrl(), failed.size()));
+    }
+    
+    /**
+     * Failed item keys from the merchant response; a body that is not a batch result accepts every item
+     */
+    private Set<String> failedKeys(String responseBody) {
+        if (responseBody.isBlank()) {
+            return Set.of();
+        }
         try {
-            log.info("Processing webhook for target URL: {}", message.getTargetUrl());
-            
-            // Create headers with API key
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
-            headers.set(message.getApiKeyName(), message.getApiKeyValue());
-            
-            // Create request entity with payload
-            String payloadJson = objectMapper.writeValueAsString(message.getPayload());
-            HttpEntity<String> requestEntity = new HttpEntity<>(payloadJson, headers);
-            
-            // Send HTTP POST request
-            ResponseEntity<String> response = restTemplate.exchange(
-                    message.getTargetUrl(),
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class
-            );
-            
-            // Check response status
-            if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("Webhook delivered successfully to: {}", message.getTargetUrl());
-            } else {
-                log.warn("Webhook delivery returned non-2xx status: {} for URL: {}", 
-                        response.getStatusCode(), message.getTargetUrl());
-            }
-            
-        } catch (ResourceAccessException e) {
-            log.error("Timeout or connection error delivering webhook to: {}", 
-                    message.getTargetUrl(), e);
-            // Don't throw - let RabbitMQ retry logic handle it
-        } catch (RestClientException e) {
-            log.error("HTTP client error delivering webhook to: {}", 
-                    message.getTargetUrl(), e);
-            // Don't throw - let RabbitMQ retry logic handle it
-        } catch (Exception e) {
-            log.error("Unexpected error processing webhook for URL: {}", 
-                    message.getTargetUrl(), e);
-            // Don't throw - let RabbitMQ retry logic handle it
+            WebhookBatchResultDto result = objectMapper.readValue(responseBody, WebhookBatchResultDto.class);
+            return result.getFailed() != null ? new HashSet<>(result.getFailed()) : Set.of();
+        } catch (JsonProcessingException e) {
+            log.debug("Webhook batch response is not a batch result, all items accepted");
+            return Set.of();
         }
     }
+    
+    private Mono<Void> retryFailedItems(List<PendingDelivery> items, Set<String> failedKeys) {
+        if (failedKeys.isEmpty()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(items)
+                .filter(pending -> failedKeys.contains(WebhookBatchItemDto.of(pending.message()).getIdempotencyKey()))
+                .concatMap(pending -> handleFailure(pending.message(), pending.previousRetries(),
+                        true, "item failed in batch", null))
+                .then();
+    }
+    
+    private Mono<Void> parkAll(List<PendingDelivery> items, MerchantDeliveryGuard.Lane lane, long minDelayMs,
+                               String reason) {
+        return Flux.fromIterable(items)
+                .concatMap(pending -> park(pending.message(), lane, pending.previousRetries(), minDelayMs, reason))
+                .then();
+    }
+    
+    /**
+     * Move the delivery to a retry tier without calling the merchant and without using retry budget
+     */
+    private Mono<Void> park(WebhookMessageDto message, MerchantDeliveryGuard.Lane lane, int previousRetries,
+                            long minDelayMs, String reason) {
+        lane.onParked();
+        countRepublished("parked");
+        log.debug("Webhook delivery to merchant {} parked: {}", lane.getMerchant(), reason);
+        return republish(message, retryPolicy.parkRoutingKey(minDelayMs), previousRetries, reason);
+    }
+    
+    /**
+     * Schedule a delayed retry or move the message to the DLQ
+     * The message is acked only after the broker confirmed the republish, so a failed, nacked or
+     * unroutable republish redelivers the original.
+     */
+    private Mono<Void> handleFailure(WebhookMessageDto message, int previousRetries, Throwable error) {
+        // Response errors are logged without stack trace, the status says it all
+        return handleFailure(message, previousRetries, retryPolicy.isRetryable(error), describe(error),
+                error instanceof WebClientResponseException ? null : error);
+    }
+    
+    private Mono<Void> handleFailure(WebhookMessageDto message, int previousRetries, boolean retryable,
+                                     String reason, Throwable cause) {
+        if (retryable && previousRetries < retryPolicy.getMaxRetries()) {
+            log.warn("Webhook delivery to {} failed ({}), retry {} of {} in {} ms",
+                    message.getTargetUrl(), reason, previousRetries + 1, retryPolicy.getMaxRetries(),
+                    retryPolicy.delayFor(previousRetries));
+            countRepublished("retry");
+            return republish(message, retryPolicy.retryRoutingKey(previousRetries), previousRetries + 1, reason);
+        }
+        if (cause == null) {
+            log.error("Webhook delivery to {} failed ({}) after {} retries, moving to DLQ",
+                    message.getTargetUrl(), reason, previousRetries);
+        } else {
+            log.error("Webhook delivery to {} failed ({}) after {} retries, moving to DLQ",
+                    message.getTargetUrl(), reason, previousRetries, cause);
+        }
+        countRepublished("dlq");
+        return republish(message, WebhookRetryPolicy.DLQ_ROUTING_KEY, previousRetries, reason);
+    }
+    
+    /**
+     * Publish to the retry exchange and complete once the broker confirmed it
+     * The send blocks on the broker connection, so it runs on bounded-elastic and never on an event
+     * loop or the batch timer thread.
+     */
+    private Mono<Void> republish(WebhookMessageDto message, String routingKey, int attempt, String reason) {
+        CorrelationData correlationData = new CorrelationData();
+        return Mono.fromRunnable(() -> rabbitTemplate.convertAndSend(WebhookRetryPolicy.RETRY_EXCHANGE, routingKey,
+                        message, amqpMessage -> {
+                            amqpMessage.getMessageProperties().setHeader(WebhookRetryPolicy.ATTEMPT_HEADER, attempt);
+                            amqpMessage.getMessageProperties().setHeader(WebhookRetryPolicy.ERROR_HEADER, reason);
+                            // Retries stay in the trace of the original request
+                            return TraceParents.header(message.getTraceParent()).postProcessMessage(amqpMessage);
+                        }, correlationData))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.fromFuture(correlationData.getFuture()))
+                .timeout(Duration.ofMillis(republishConfirmTimeoutMs))
+                .flatMap(confirm -> {
+                    if (!confirm.isAck()) {
+                        return Mono.<Void>error(new AmqpException("Republish nacked: " + confirm.getReason()));
+                    }
+                    if (correlationData.getReturned() != null) {
+                        return Mono.<Void>error(new AmqpException("Republish unroutable: "
+                                + correlationData.getReturned().getReplyText()));
+                    }
+                    return Mono.<Void>empty();
+                })
+                .doOnError(e -> countRepublished("failed"));
+    }
+    
+    /**
+     * Time from listener entry until the message is acked or requeued
+     */
+    private void recordConsume(long startNanos, String result) {
+        Timer.builder(CONSUME_TIMER)
+                .description("Time a webhook message is held before ack or requeue")
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Merchant HTTP call duration; the outcome is a status class, never the URL or merchant
+     */
+    private void recordDelivery(String mode, long startNanos, Throwable error) {
+        Timer.builder(DELIVERY_TIMER)
+                .description("Duration of webhook HTTP requests to merchants")
+                .tag("mode", mode)
+                .tag("outcome", outcomeOf(error))
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private void countRepublished(String action) {
+        Counter.builder(REPUBLISH_COUNTER)
+                .description("Webhook messages moved to a retry tier or the DLQ, and failed republishes")
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    private static String outcomeOf(Throwable error) {
+        if (error == null) {
+            return "success";
+        }
+        if (error instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is4xxClientError() ? "client_error" : "server_error";
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException
+                ? "transport_error" : "error";
+    }
+    
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+    
+    private static String describe(Throwable error) {
+        String reason;
+        if (error instanceof WebClientResponseException responseException) {
+            reason = "HTTP " + responseException.getStatusCode().value();
+        } else if (error instanceof WebClientRequestException || error instanceof TimeoutException) {
+            reason = "timeout or connection error: " + error.getMessage();
+        } else {
+            reason = error.getClass().getSimpleName() + ": " + error.getMessage();
+        }
+        return reason.length() > ERROR_MAX_LENGTH ? reason.substring(0, ERROR_MAX_LENGTH) : reason;
+    }
 }
-
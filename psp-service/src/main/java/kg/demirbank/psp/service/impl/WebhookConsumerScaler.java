@@ -0,0 +1,115 @@
+package kg.demirbank.psp.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scales the consumers of the shared webhook queue between min and max consumers
+ * The shared queue carries retries and parked deliveries, so it holds the backlog after a merchant
+ * or broker incident. A consumer keeps prefetch deliveries in flight, each for the measured hold
+ * time, so the consumers needed to drain depth within drain-target-ms are
+ * depth * holdTime / (prefetch * drainTarget). Scaling up is immediate, scaling down one consumer
+ * per interval. Partition queues keep one consumer each to stay ordered and are not scaled.
+ */
+@Component
+@ManagedResource(objectName = "kg.demirbank.psp:type=WebhookConsumerScaler")
+@Slf4j
+public class WebhookConsumerScaler {
+
+    private static final double EWMA_ALPHA = 0.1;
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final AmqpAdmin amqpAdmin;
+    private final String queueName;
+    private final int prefetch;
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final long drainTargetMs;
+
+    private volatile double holdTimeEwmaMs;
+    private volatile long lastDepth;
+    private volatile int consumers;
+
+    public WebhookConsumerScaler(RabbitListenerEndpointRegistry listenerRegistry,
+                                 AmqpAdmin amqpAdmin,
+                                 @Value("${webhook.rabbitmq.queue}") String queueName,
+                                 @Value("${webhook.rabbitmq.listener.prefetch:250}") int prefetch,
+                                 @Value("${webhook.rabbitmq.listener.min-consumers:1}") int minConsumers,
+                                 @Value("${webhook.rabbitmq.listener.max-consumers:8}") int maxConsumers,
+                                 @Value("${webhook.rabbitmq.listener.drain-target-ms:60000}") long drainTargetMs) {
+        this.listenerRegistry = listenerRegistry;
+        this.amqpAdmin = amqpAdmin;
+        this.queueName = queueName;
+        this.prefetch = Math.max(1, prefetch);
+        this.minConsumers = Math.max(1, minConsumers);
+        this.maxConsumers = Math.max(this.minConsumers, maxConsumers);
+        this.drainTargetMs = Math.max(1, drainTargetMs);
+        this.consumers = this.minConsumers;
+    }
+
+    /**
+     * Record how long a delivery held its prefetch slot, from listener entry to ack
+     */
+    public void recordHoldTime(long holdTimeMs) {
+        double current = holdTimeEwmaMs;
+        holdTimeEwmaMs = current == 0 ? holdTimeMs : current + EWMA_ALPHA * (holdTimeMs - current);
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.rabbitmq.listener.scale-interval-ms:5000}")
+    public void scale() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(WebhookConsumer.SHARED_LISTENER_ID);
+        if (!(container instanceof SimpleMessageListenerContainer simple) || !simple.isRunning()) {
+            return;
+        }
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(queueName);
+            if (info == null) {
+                return;
+            }
+            lastDepth = info.getMessageCount();
+            int desired = desiredConsumers(lastDepth, holdTimeEwmaMs);
+            int next = desired >= consumers ? desired : consumers - 1;
+            if (next != consumers) {
+                log.info("Webhook consumers {} -> {} (queue depth {}, hold time {} ms)",
+                        consumers, next, lastDepth, Math.round(holdTimeEwmaMs));
+                simple.setConcurrentConsumers(next);
+                consumers = next;
+            }
+        } catch (Exception e) {
+            log.warn("Webhook consumer scaling skipped: {}", e.getMessage());
+        }
+    }
+
+    int desiredConsumers(long depth, double holdTimeMs) {
+        if (depth == 0) {
+            return minConsumers;
+        }
+        double drainedPerConsumer = prefetch * drainTargetMs / Math.max(1.0, holdTimeMs);
+        long needed = (long) Math.ceil(depth / drainedPerConsumer);
+        return (int) Math.max(minConsumers, Math.min(maxConsumers, needed));
+    }
+
+    @ManagedAttribute(description = "Consumers of the shared webhook queue")
+    public int getConsumers() {
+        return consumers;
+    }
+
+    @ManagedAttribute(description = "Shared webhook queue depth at the last scaling check")
+    public long getQueueDepth() {
+        return lastDepth;
+    }
+
+    @ManagedAttribute(description = "Smoothed time a delivery holds its prefetch slot, ms")
+    public long getHoldTimeMs() {
+        return Math.round(holdTimeEwmaMs);
+    }
+}
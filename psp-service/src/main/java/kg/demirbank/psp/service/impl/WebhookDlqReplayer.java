@@ -0,0 +1,162 @@
+package kg.demirbank.psp.service.impl;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Re-injects webhook messages from the DLQ into the main exchange
+ * Started over JMX after the merchant endpoint is fixed. Messages are moved in batches at a capped
+ * rate; each batch is acked on the DLQ only after the broker confirmed the republished copies.
+ * A run moves at most the DLQ depth seen at start, so messages failing again are not replayed twice.
+ */
+@Component
+@ManagedResource(objectName = "kg.demirbank.psp:type=WebhookDlqReplayer")
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookDlqReplayer {
+
+    private static final String REPLAY_COUNT_HEADER = "x-webhook-replay-count";
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder replayed = new LongAdder();
+    private volatile boolean stopRequested;
+
+    @Value("${webhook.rabbitmq.exchange}")
+    private String exchangeName;
+
+    @Value("${webhook.rabbitmq.routing-key}")
+    private String routingKey;
+
+    @Value("${webhook.rabbitmq.dlq}")
+    private String dlqName;
+
+    @Value("${webhook.retry.replay.batch-size:50}")
+    private int batchSize;
+
+    @Value("${webhook.retry.replay.rate-per-second:20}")
+    private int ratePerSecond;
+
+    @Value("${webhook.retry.replay.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    /**
+     * Start replaying in the background
+     *
+     * @param maxMessages upper bound for this run, 0 or less replays the whole DLQ depth
+     */
+    @ManagedOperation(description = "Replay DLQ messages into the main webhook exchange (0 = whole DLQ)")
+    public String replay(int maxMessages) {
+        if (!running.compareAndSet(false, true)) {
+            return "Replay already running";
+        }
+        stopRequested = false;
+        Thread thread = new Thread(() -> {
+            try {
+                runReplay(maxMessages);
+            } catch (Exception e) {
+                log.error("Webhook DLQ replay failed", e);
+            } finally {
+                running.set(false);
+            }
+        }, "webhook-dlq-replay");
+        thread.setDaemon(true);
+        thread.start();
+        return "Replay started";
+    }
+
+    @ManagedOperation(description = "Stop the running replay after the current batch")
+    public void stopReplay() {
+        stopRequested = true;
+    }
+
+    @ManagedAttribute(description = "Whether a replay is running")
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @ManagedAttribute(description = "Messages replayed since startup")
+    public long getReplayedCount() {
+        return replayed.sum();
+    }
+
+    @ManagedAttribute(description = "Messages waiting in the webhook DLQ")
+    public long getDlqDepth() {
+        Long depth = rabbitTemplate.execute(channel -> channel.messageCount(dlqName));
+        return depth != null ? depth : 0;
+    }
+
+    private void runReplay(int maxMessages) {
+        long depth = getDlqDepth();
+        long limit = maxMessages > 0 ? Math.min(maxMessages, depth) : depth;
+        long batchIntervalNanos = TimeUnit.SECONDS.toNanos(1) * batchSize / Math.max(1, ratePerSecond);
+        log.info("Webhook DLQ replay started: {} of {} messages, {} per second", limit, depth, ratePerSecond);
+
+        long total = 0;
+        while (total < limit && !stopRequested) {
+            long batchStart = System.nanoTime();
+            int batchLimit = (int) Math.min(batchSize, limit - total);
+            Integer moved = rabbitTemplate.execute(channel -> moveBatch(channel, batchLimit));
+            int count = moved != null ? moved : 0;
+            total += count;
+            replayed.add(count);
+            if (count < batchLimit) {
+                break;
+            }
+            long sleepNanos = batchIntervalNanos - (System.nanoTime() - batchStart);
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(sleepNanos);
+            }
+        }
+        log.info("Webhook DLQ replay finished: {} messages replayed{}", total, stopRequested ? " (stopped)" : "");
+    }
+
+    /**
+     * Move up to limit messages; retry attempts are reset so each message gets the full retry budget
+     */
+    private int moveBatch(Channel channel, int limit) throws IOException, InterruptedException, TimeoutException {
+        channel.confirmSelect();
+        long lastDeliveryTag = -1;
+        int moved = 0;
+        while (moved < limit) {
+            GetResponse response = channel.basicGet(dlqName, false);
+            if (response == null) {
+                break;
+            }
+            AMQP.BasicProperties properties = response.getProps();
+            Map<String, Object> headers = properties.getHeaders() != null
+                    ? new HashMap<>(properties.getHeaders()) : new HashMap<>();
+            Object replayCount = headers.get(REPLAY_COUNT_HEADER);
+            headers.put(REPLAY_COUNT_HEADER, replayCount instanceof Number number ? number.intValue() + 1 : 1);
+            headers.put(WebhookRetryPolicy.ATTEMPT_HEADER, 0);
+            channel.basicPublish(exchangeName, routingKey, properties.builder().headers(headers).build(),
+                    response.getBody());
+            lastDeliveryTag = response.getEnvelope().getDeliveryTag();
+            moved++;
+        }
+        if (lastDeliveryTag >= 0) {
+            channel.waitForConfirmsOrDie(confirmTimeoutMs);
+            channel.basicAck(lastDeliveryTag, true);
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,100 @@
+package kg.demirbank.psp.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Partitioning of first-attempt webhook deliveries by transaction
+ * Each transaction is mapped to one of N partition queues with jump consistent hash, so all its
+ * events land in the same queue and are consumed in order by that queue's single consumer.
+ * Changing N moves only the keys that must move (about 1/N when growing). Retried deliveries go
+ * through the shared webhook queue instead, since a retry is out of order by definition.
+ */
+@Component
+public class WebhookPartitions {
+
+    private static final String QUEUE_PREFIX = "webhook.merchant.notify.queue.p";
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int count;
+    private final int listenCount;
+    private final String routingKey;
+
+    public WebhookPartitions(@Value("${webhook.partitions.count:8}") int count,
+                             @Value("${webhook.partitions.listen-count:0}") int listenCount,
+                             @Value("${webhook.rabbitmq.routing-key}") String routingKey) {
+        this.count = Math.max(1, count);
+        this.listenCount = Math.max(this.count, listenCount);
+        this.routingKey = routingKey;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Partition of the transaction, -1 for messages without one
+     */
+    public int partitionOf(String pspTransactionId) {
+        if (pspTransactionId == null) {
+            return -1;
+        }
+        return jumpConsistentHash(fnv1a64(pspTransactionId), count);
+    }
+
+    /**
+     * Routing key for the transaction's partition; the shared routing key for messages without one
+     */
+    public String routingKeyFor(String pspTransactionId) {
+        int partition = partitionOf(pspTransactionId);
+        return partition < 0 ? routingKey : partitionRoutingKey(partition);
+    }
+
+    public String partitionRoutingKey(int partition) {
+        return routingKey + ".p" + partition;
+    }
+
+    public static String queueName(int partition) {
+        return QUEUE_PREFIX + partition;
+    }
+
+    /**
+     * Partition queues to declare and consume
+     * Includes partitions retired by a smaller count (listen-count), so they are drained.
+     */
+    public String[] listenQueueNames() {
+        String[] names = new String[listenCount];
+        for (int i = 0; i < listenCount; i++) {
+            names[i] = queueName(i);
+        }
+        return names;
+    }
+
+    public int getListenCount() {
+        return listenCount;
+    }
+
+    /**
+     * Jump consistent hash (Lamping, Veach 2014)
+     */
+    static int jumpConsistentHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    private static long fnv1a64(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
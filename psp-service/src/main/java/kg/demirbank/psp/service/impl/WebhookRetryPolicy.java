@@ -0,0 +1,123 @@
+package kg.demirbank.psp.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retry tiers for failed webhook deliveries
+ * Each tier is a queue with a fixed TTL that dead-letters back to the main webhook exchange, so a
+ * waiting message holds no consumer and never blocks other deliveries. Retry N uses tier
+ * min(N, tiers - 1); after max-retries the message goes to the DLQ.
+ */
+@Component
+public class WebhookRetryPolicy {
+
+    /**
+     * Header with the number of retries already scheduled for the message
+     */
+    public static final String ATTEMPT_HEADER = "x-webhook-attempt";
+
+    /**
+     * Header with the last delivery error
+     */
+    public static final String ERROR_HEADER = "x-webhook-last-error";
+
+    public static final String RETRY_EXCHANGE = "webhook.merchant.notify.retry";
+    public static final String DLQ_ROUTING_KEY = "dlq";
+
+    private static final String RETRY_QUEUE_PREFIX = "webhook.merchant.notify.retry.";
+    private static final String RETRY_ROUTING_KEY_PREFIX = "retry.";
+
+    private final List<Long> delaysMs;
+    private final int maxRetries;
+
+    public WebhookRetryPolicy(@Value("${webhook.retry.delays-ms:10000,60000,300000}") List<Long> delaysMs,
+                              @Value("${webhook.http.max-retries:3}") int maxRetries) {
+        if (delaysMs.isEmpty()) {
+            throw new IllegalArgumentException("webhook.retry.delays-ms must not be empty");
+        }
+        this.delaysMs = List.copyOf(delaysMs);
+        this.maxRetries = maxRetries;
+    }
+
+    public List<Long> getDelaysMs() {
+        return delaysMs;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Delay of the retry scheduled after the given number of previous retries
+     */
+    public long delayFor(int attempt) {
+        return delaysMs.get(Math.min(attempt, delaysMs.size() - 1));
+    }
+
+    /**
+     * Routing key of the tier used after the given number of previous retries
+     */
+    public String retryRoutingKey(int attempt) {
+        return RETRY_ROUTING_KEY_PREFIX + delayFor(attempt);
+    }
+
+    /**
+     * Routing key of the shortest tier that waits at least the given time (longest tier if none does)
+     * Used to park deliveries without consuming retry budget
+     */
+    public String parkRoutingKey(long minDelayMs) {
+        for (Long delayMs : delaysMs) {
+            if (delayMs >= minDelayMs) {
+                return retryRoutingKeyForDelay(delayMs);
+            }
+        }
+        return retryRoutingKeyForDelay(delaysMs.get(delaysMs.size() - 1));
+    }
+
+    /**
+     * Queue name of the tier with the given delay; the delay is part of the name because
+     * RabbitMQ rejects redeclaring a queue with a different TTL
+     */
+    public static String retryQueueName(long delayMs) {
+        return RETRY_QUEUE_PREFIX + delayMs + "ms";
+    }
+
+    public static String retryRoutingKeyForDelay(long delayMs) {
+        return RETRY_ROUTING_KEY_PREFIX + delayMs;
+    }
+
+    /**
+     * Delay encoded in a retry routing key, -1 if the key is not a retry key
+     */
+    public static long delayOf(String routingKey) {
+        if (routingKey == null || !routingKey.startsWith(RETRY_ROUTING_KEY_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(routingKey.substring(RETRY_ROUTING_KEY_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Transport failures, timeouts, 5xx, 408 and 429 are retried; other 4xx responses will not
+     * succeed on retry and go straight to the DLQ
+     */
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status >= 500 || status == 408 || status == 429;
+        }
+        return error instanceof WebClientRequestException
+                || error instanceof TimeoutException
+                || error instanceof IOException;
+    }
+}
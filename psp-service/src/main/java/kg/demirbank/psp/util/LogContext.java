@@ -0,0 +1,51 @@
+package kg.demirbank.psp.util;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Log correlation fields carried in the Reactor Context
+ * The fields (LoggingUtil MDC keys) are written once per request or message as one immutable map
+ * under {@link #KEY}. LogContextAccessor restores them into the MDC on whichever thread runs the
+ * pipeline, so nothing sets or copies the MDC by hand and thread hops cannot mix requests.
+ */
+public final class LogContext {
+
+    /**
+     * Reactor Context key of the field map
+     */
+    public static final String KEY = "psp.log-context";
+
+    private LogContext() {
+    }
+
+    /**
+     * Context write adding one field; a null value leaves the context unchanged
+     */
+    public static Function<Context, Context> with(String field, String value) {
+        return context -> {
+            if (value == null) {
+                return context;
+            }
+            Map<String, String> current = context.getOrDefault(KEY, Map.of());
+            if (value.equals(current.get(field))) {
+                return context;
+            }
+            Map<String, String> fields = new HashMap<>(current);
+            fields.put(field, value);
+            return context.put(KEY, Map.copyOf(fields));
+        };
+    }
+
+    /**
+     * Field value from the context, null if not set
+     */
+    public static String get(ContextView context, String field) {
+        Map<String, String> fields = context.getOrDefault(KEY, Map.of());
+        return fields.get(field);
+    }
+}
@@ -0,0 +1,54 @@
+package kg.demirbank.psp.util;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+/**
+ * Restores the LogContext fields into the MDC
+ * Registered with the context-propagation ContextRegistry (META-INF/services). With
+ * spring.reactor.context-propagation=auto Reactor calls it only where a signal continues on another
+ * thread or leaves a contextWrite, not per operator; restoring the map already in place is a
+ * reference check.
+ */
+public class LogContextAccessor implements ThreadLocalAccessor<Map<String, String>> {
+
+    private static final ThreadLocal<Map<String, String>> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public Object key() {
+        return LogContext.KEY;
+    }
+
+    @Override
+    public Map<String, String> getValue() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public void setValue(Map<String, String> fields) {
+        Map<String, String> previous = CURRENT.get();
+        if (previous == fields) {
+            return;
+        }
+        if (previous != null) {
+            previous.keySet().forEach(field -> {
+                if (!fields.containsKey(field)) {
+                    MDC.remove(field);
+                }
+            });
+        }
+        fields.forEach(MDC::put);
+        CURRENT.set(fields);
+    }
+
+    @Override
+    public void setValue() {
+        Map<String, String> previous = CURRENT.get();
+        if (previous != null) {
+            previous.keySet().forEach(MDC::remove);
+            CURRENT.remove();
+        }
+    }
+}
@@ -3,14 +3,12 @@ package kg.demirbank.psp.util;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * Simplified utility class for structured logging in PSP service.
@@ -25,7 +23,7 @@ public class LoggingUtil {
     // Specialized loggers
     private static final Logger AUDIT_LOGGER = LoggerFactory.getLogger("AUDIT");
     
-    // Essential MDC Keys for log correlation and analysis
+    // Essential MDC Keys for log correlation and analysis, set through LogContext
     public static final String CORRELATION_ID = "correlationId";
     public static final String PSP_TRANSACTION_ID = "pspTransactionId";
     public static final String TRANSACTION_ID = "transactionId";
@@ -37,56 +35,6 @@ public class LoggingUtil {
     public static final String STATUS = "status";
     public static final String ERROR_CODE = "errorCode";
     
-    /**
-     * Generate and set new correlation ID
-     */
-    public static String generateAndSetCorrelationId() {
-        String correlationId = UUID.randomUUID().toString();
-        MDC.put(CORRELATION_ID, correlationId);
-        return correlationId;
-    }
-    
-    /**
-     * Set correlation ID for request tracing
-     */
-    public static void setCorrelationId(String correlationId) {
-        if (correlationId != null) {
-            MDC.put(CORRELATION_ID, correlationId);
-        }
-    }
-    
-    /**
-     * Set essential transaction context in MDC for log correlation
-     */
-    public static void setTransactionContext(String pspTransactionId, String transactionId, 
-                                           String receiptId, String operationType,
-                                           String transferDirection, Integer merchantCode, 
-                                           Long amount, String status) {
-        if (pspTransactionId != null) MDC.put(PSP_TRANSACTION_ID, pspTransactionId);
-        if (transactionId != null) MDC.put(TRANSACTION_ID, transactionId);
-        if (receiptId != null) MDC.put(RECEIPT_ID, receiptId);
-        if (operationType != null) MDC.put(OPERATION_TYPE, operationType);
-        if (transferDirection != null) MDC.put(TRANSFER_DIRECTION, transferDirection);
-        if (merchantCode != null) MDC.put(MERCHANT_CODE, merchantCode.toString());
-        if (amount != null) MDC.put(AMOUNT, amount.toString());
-        if (status != null) MDC.put(STATUS, status);
-    }
-    
-    /**
-     * Set error context in MDC
-     */
-    public static void setErrorContext(String errorCode) {
-        if (errorCode != null) MDC.put(ERROR_CODE, errorCode);
-    }
-    
-    /**
-     * Clear all MDC context
-     */
-    public static void clearContext() {
-        MDC.clear();
-    }
-    
-    
     /**
      * Log operation success - simplified version
      */
@@ -76,6 +76,8 @@ CREATE TABLE merchant_webhooks (
     api_key_value VARCHAR2(255) NOT NULL,
     target_url VARCHAR2(500) NOT NULL,
     is_active NUMBER(1) NOT NULL DEFAULT 1,
+    batch_max_size NUMBER(5),
+    batch_max_wait_ms NUMBER(10),
     created_at TIMESTAMP NOT NULL,
     created_by VARCHAR2(50),
     updated_at TIMESTAMP,
@@ -85,6 +87,23 @@ CREATE TABLE merchant_webhooks (
     CONSTRAINT chk_merchant_webhooks_active CHECK (is_active IN (0, 1))
 );
 
+-- Transactional outbox: events written with the business change, published by OutboxPublisher
+-- A row is pending while published_at is NULL, dead_at is set once it used up its attempts
+-- claimed_until leases a pending row to the publisher batch sending it
+CREATE TABLE outbox_events (
+    id NUMBER(19) NOT NULL,
+    event_type VARCHAR2(32) NOT NULL,
+    aggregate_id NUMBER(19) NOT NULL,
+    payload VARCHAR2(4000) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    published_at TIMESTAMP,
+    attempts NUMBER(10) DEFAULT 0 NOT NULL,
+    last_error VARCHAR2(500),
+    dead_at TIMESTAMP,
+    claimed_until TIMESTAMP,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id)
+);
+
 -- Create sequences
 CREATE SEQUENCE operations_seq
     START WITH 1
@@ -98,6 +117,12 @@ CREATE SEQUENCE extra_data_seq
     NOCACHE
     NOCYCLE;
 
+CREATE SEQUENCE outbox_events_seq
+    START WITH 1
+    INCREMENT BY 1
+    CACHE 100
+    NOCYCLE;
+
 -- Create indexes for better performance
 -- Unique constraints automatically create unique indexes for:
 -- - psp_transaction_id (uk_operations_psp_transaction_id)
@@ -125,6 +150,10 @@ CREATE INDEX idx_extra_data_key_name ON extra_data(key_name);
 CREATE INDEX idx_merchant_webhooks_app_id ON merchant_webhooks(app_id);
 CREATE INDEX idx_merchant_webhooks_active ON merchant_webhooks(is_active);
 
+-- Outbox: pending rows (published_at NULL) are still indexed because id is never NULL
+CREATE INDEX idx_outbox_events_published_at ON outbox_events(published_at, id);
+
 -- Grant permissions to application user (replace 'psp_user' with actual username)
 -- GRANT SELECT, INSERT, UPDATE, DELETE ON operations TO psp_user;
 -- GRANT SELECT, INSERT, UPDATE, DELETE ON extra_data TO psp_user;
+-- GRANT SELECT, INSERT, UPDATE, DELETE ON outbox_events TO psp_user;
@@ -25,7 +25,16 @@ CREATE SEQUENCE MERCHANT_WEBHOOKS_SEQ
     NOCYCLE
     CACHE 20;
 
+-- Sequence for outbox_events table
+CREATE SEQUENCE OUTBOX_EVENTS_SEQ
+    START WITH 1
+    INCREMENT BY 1
+    NOMAXVALUE
+    NOCYCLE
+    CACHE 100;
+
 -- Grant permissions to application user (replace 'psp_user' with actual username)
 -- GRANT SELECT ON OPERATIONS_SEQ TO psp_user;
 -- GRANT SELECT ON EXTRA_DATA_SEQ TO psp_user;
 -- GRANT SELECT ON MERCHANT_WEBHOOKS_SEQ TO psp_user;
+-- GRANT SELECT ON OUTBOX_EVENTS_SEQ TO psp_user;
@@ -0,0 +1,10 @@
+-- Merchants for the perflab profile, webhooks are delivered to the embedded stub server
+INSERT INTO merchant_webhooks (id, merchant_name, app_id, api_key_name, api_key_value, target_url, is_active, created_at, created_by)
+VALUES (MERCHANT_WEBHOOKS_SEQ.NEXTVAL, 'SmartPos', 'pvumkrstkemowcealu7o', 'X-API-KEY', 'perflab-key', 'http://127.0.0.1:18081/webhook/smartpos', 1, CURRENT_TIMESTAMP, 'perflab');
+INSERT INTO merchant_webhooks (id, merchant_name, app_id, api_key_name, api_key_value, target_url, is_active, created_at, created_by)
+VALUES (MERCHANT_WEBHOOKS_SEQ.NEXTVAL, 'Perflab Merchant 1', 'perflab-merchant-1', 'X-API-KEY', 'perflab-key', 'http://127.0.0.1:18081/webhook/merchant-1', 1, CURRENT_TIMESTAMP, 'perflab');
+INSERT INTO merchant_webhooks (id, merchant_name, app_id, api_key_name, api_key_value, target_url, is_active, created_at, created_by)
+VALUES (MERCHANT_WEBHOOKS_SEQ.NEXTVAL, 'Perflab Merchant 2', 'perflab-merchant-2', 'X-API-KEY', 'perflab-key', 'http://127.0.0.1:18081/webhook/merchant-2', 1, CURRENT_TIMESTAMP, 'perflab');
+-- Merchant 3 receives batched deliveries
+INSERT INTO merchant_webhooks (id, merchant_name, app_id, api_key_name, api_key_value, target_url, is_active, batch_max_size, batch_max_wait_ms, created_at, created_by)
+VALUES (MERCHANT_WEBHOOKS_SEQ.NEXTVAL, 'Perflab Merchant 3', 'perflab-merchant-3', 'X-API-KEY', 'perflab-key', 'http://127.0.0.1:18081/webhook/merchant-3', 1, 50, 200, CURRENT_TIMESTAMP, 'perflab');
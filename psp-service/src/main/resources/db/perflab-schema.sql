@@ -0,0 +1,103 @@
+-- H2 (Oracle mode) schema for the perflab profile
+-- Mirrors oracle-schema.sql, sized to the JPA mapping: enum ordinals in operation_type,
+-- transaction_type and status, enum names in customer_type
+
+CREATE TABLE operations (
+    id NUMBER(19) NOT NULL,
+    psp_transaction_id VARCHAR2(50) NOT NULL,
+    payment_session_id VARCHAR2(50),
+    operation_type NUMBER(3) NOT NULL,
+    transfer_direction VARCHAR2(3) NOT NULL,
+    transaction_id VARCHAR2(32),
+    receipt_id VARCHAR2(20),
+    qr_type VARCHAR2(32) NOT NULL,
+    merchant_provider VARCHAR2(32) NOT NULL,
+    merchant_id VARCHAR2(32),
+    service_id VARCHAR2(32),
+    service_name VARCHAR2(32),
+    beneficiary_account_number VARCHAR2(32),
+    merchant_code NUMBER(10) NOT NULL,
+    currency_code VARCHAR2(3) NOT NULL,
+    qr_transaction_id VARCHAR2(32),
+    qr_comment VARCHAR2(99),
+    customer_type VARCHAR2(16) NOT NULL,
+    amount NUMBER(19) NOT NULL,
+    qr_link_hash VARCHAR2(4) NOT NULL,
+    transaction_type NUMBER(3),
+    status NUMBER(3),
+    beneficiary_name VARCHAR2(100),
+    request_hash VARCHAR2(255),
+    api_version VARCHAR2(10),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    executed_at TIMESTAMP,
+    last_status_update_at TIMESTAMP,
+    error_message VARCHAR2(500),
+    retry_count NUMBER(10) DEFAULT 0 NOT NULL,
+    max_retries NUMBER(10) DEFAULT 3 NOT NULL,
+    is_final NUMBER(1) DEFAULT 0 NOT NULL,
+    created_by VARCHAR2(50),
+    updated_by VARCHAR2(50),
+    CONSTRAINT pk_operations PRIMARY KEY (id),
+    CONSTRAINT uk_operations_psp_transaction_id UNIQUE (psp_transaction_id),
+    CONSTRAINT uk_operations_payment_session_id UNIQUE (payment_session_id),
+    CONSTRAINT uk_operations_transaction_id UNIQUE (transaction_id),
+    CONSTRAINT uk_operations_receipt_id UNIQUE (receipt_id)
+);
+
+CREATE TABLE extra_data (
+    id NUMBER(19) NOT NULL,
+    key_name VARCHAR2(64) NOT NULL,
+    value_data VARCHAR2(256) NOT NULL,
+    order_index NUMBER(10),
+    operation_id NUMBER(19) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    is_active NUMBER(1) DEFAULT 1 NOT NULL,
+    data_type VARCHAR2(20),
+    description VARCHAR2(200),
+    CONSTRAINT pk_extra_data PRIMARY KEY (id),
+    CONSTRAINT fk_extra_data_operation FOREIGN KEY (operation_id) REFERENCES operations(id)
+);
+
+CREATE TABLE merchant_webhooks (
+    id NUMBER(19) NOT NULL,
+    merchant_name VARCHAR2(100) NOT NULL,
+    app_id VARCHAR2(32) NOT NULL,
+    api_key_name VARCHAR2(100) NOT NULL,
+    api_key_value VARCHAR2(255) NOT NULL,
+    target_url VARCHAR2(500) NOT NULL,
+    is_active NUMBER(1) DEFAULT 1 NOT NULL,
+    batch_max_size NUMBER(5),
+    batch_max_wait_ms NUMBER(10),
+    created_at TIMESTAMP NOT NULL,
+    created_by VARCHAR2(50),
+    updated_at TIMESTAMP,
+    updated_by VARCHAR2(50),
+    CONSTRAINT pk_merchant_webhooks PRIMARY KEY (id),
+    CONSTRAINT uk_merchant_webhooks_app_id UNIQUE (app_id)
+);
+
+CREATE TABLE outbox_events (
+    id NUMBER(19) NOT NULL,
+    event_type VARCHAR2(32) NOT NULL,
+    aggregate_id NUMBER(19) NOT NULL,
+    payload VARCHAR2(4000) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    published_at TIMESTAMP,
+    attempts NUMBER(10) DEFAULT 0 NOT NULL,
+    last_error VARCHAR2(500),
+    dead_at TIMESTAMP,
+    claimed_until TIMESTAMP,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id)
+);
+
+CREATE SEQUENCE OPERATIONS_SEQ START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE EXTRA_DATA_SEQ START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE MERCHANT_WEBHOOKS_SEQ START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE OUTBOX_EVENTS_SEQ START WITH 1 INCREMENT BY 1;
+
+CREATE INDEX idx_operations_status ON operations(status);
+CREATE INDEX idx_operations_created_at ON operations(created_at);
+CREATE INDEX idx_extra_data_operation_id ON extra_data(operation_id);
+CREATE INDEX idx_outbox_events_published_at ON outbox_events(published_at, id);